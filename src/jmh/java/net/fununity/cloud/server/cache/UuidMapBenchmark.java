@@ -0,0 +1,89 @@
+package net.fununity.cloud.server.cache;
+
+import net.fununity.cloud.common.cache.KeyValueCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the gets and puts of the {@link UuidHashMap}, which holds the player sessions, with the {@link KeyValueCache} of the common library,
+ * which backed the player caches before.
+ * Run with: mvn -P jmh package and java -jar target/CloudSystem-Server-19-benchmarks.jar UuidMapBenchmark
+ * The memory per entry is compared by {@link UuidMapFootprint}.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UuidMapBenchmark {
+
+    @Param({"1000", "50000"})
+    private int size;
+
+    private UUID[] keys;
+    private UuidHashMap<String> uuidHashMap;
+    private KeyValueCache<UUID, String> keyValueCache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(size);
+        keys = new UUID[size];
+        uuidHashMap = new UuidHashMap<>(0);
+        keyValueCache = new KeyValueCache<>(-1);
+        for (int i = 0; i < size; i++) {
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+            uuidHashMap.put(keys[i], "en");
+            keyValueCache.put(keys[i], "en");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final Random random = new Random();
+
+        UUID next(UUID[] keys) {
+            return keys[random.nextInt(keys.length)];
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getUuidHashMap(Cursor cursor) {
+        return uuidHashMap.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getKeyValueCache(Cursor cursor) {
+        return keyValueCache.get(cursor.next(keys));
+    }
+
+    @Benchmark
+    public String putUuidHashMap(Cursor cursor) {
+        return uuidHashMap.put(cursor.next(keys), "de");
+    }
+
+    @Benchmark
+    public void putKeyValueCache(Cursor cursor) {
+        keyValueCache.put(cursor.next(keys), "de");
+    }
+}
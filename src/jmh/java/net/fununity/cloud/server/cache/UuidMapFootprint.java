@@ -0,0 +1,43 @@
+package net.fununity.cloud.server.cache;
+
+import net.fununity.cloud.common.cache.KeyValueCache;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Prints the retained bytes per entry of the {@link UuidHashMap} and of the {@link KeyValueCache} of the common library.
+ * The keys are created anew for every map, so the uuid objects only count for the maps keeping them.
+ * Run with: mvn -P jmh package and java -cp target/CloudSystem-Server-19-benchmarks.jar net.fununity.cloud.server.cache.UuidMapFootprint
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class UuidMapFootprint {
+
+    private static final int ENTRIES = 50000;
+
+    public static void main(String[] args) {
+        UuidHashMap<String> uuidHashMap = new UuidHashMap<>(0);
+        KeyValueCache<UUID, String> keyValueCache = new KeyValueCache<>(-1);
+        // the same shared value for every entry, so only the structure of the maps is measured
+        String lang = "en";
+        fill(key -> uuidHashMap.put(key, lang));
+        fill(key -> keyValueCache.put(key, lang));
+
+        print("UuidHashMap<String>", GraphLayout.parseInstance(uuidHashMap).totalSize());
+        print("KeyValueCache<UUID, String>", GraphLayout.parseInstance(keyValueCache).totalSize());
+    }
+
+    private static void fill(Consumer<UUID> put) {
+        Random random = new Random(ENTRIES);
+        for (int i = 0; i < ENTRIES; i++)
+            put.accept(new UUID(random.nextLong(), random.nextLong()));
+    }
+
+    private static void print(String name, long bytes) {
+        System.out.printf("%-30s %10d bytes, %6.1f bytes per entry%n", name, bytes, (double) bytes / ENTRIES);
+    }
+}
@@ -12,11 +12,17 @@ import io.netty.handler.codec.serialization.ObjectDecoder;
 import io.netty.handler.codec.serialization.ObjectEncoder;
 import net.fununity.cloud.common.events.cloud.CloudEventManager;
 import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.backup.BackupScheduler;
+import net.fununity.cloud.server.cache.CacheBatches;
+import net.fununity.cloud.server.cache.CacheSubscriptions;
 import net.fununity.cloud.server.client.NettyHandler;
 import net.fununity.cloud.server.client.listeners.CloudEvents;
 import net.fununity.cloud.server.client.listeners.CloudEventsCache;
 import net.fununity.cloud.server.client.listeners.CloudEventsRequests;
 import net.fununity.cloud.server.command.CloudConsole;
+import net.fununity.cloud.server.files.ServerTrash;
+import net.fununity.cloud.server.logs.LogArchiver;
+import net.fununity.cloud.server.misc.CacheHandler;
 import net.fununity.cloud.server.misc.ConfigHandler;
 import net.fununity.cloud.server.server.ServerHandler;
 
@@ -36,7 +42,13 @@ public class CloudServer implements Runnable {
 
     public static void main(String[] args) {
         LOG.info("CloudServer is starting...");
+        CacheHandler.getInstance();
+        CacheSubscriptions.getInstance();
+        CacheBatches.getInstance();
         new Thread(new CloudServer(), "Server").start();
+        ServerTrash.getInstance();
+        BackupScheduler.getInstance();
+        LogArchiver.getInstance();
         ConfigHandler.createInstance(args);
         CloudConsole.getInstance();
     }
@@ -110,6 +122,7 @@ public class CloudServer implements Runnable {
         }
         LOG.debug("Exit Cloud: Console shutdown...");
         CloudConsole.getInstance().shutDown();
+        CacheHandler.getInstance().saveSnapshot();
         System.exit(0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package net.fununity.cloud.server.backup;
+
+/**
+ * <p>
+ * Ids of the events to suspend the saving of a server during its live backup.
+ * They are not part of the cloud events of the common library yet and have to be mirrored there with the same values,
+ * before a client can answer them. The values follow the ids of the cache events.</p>
+ * Only servers, which announced {@link #SERVER_SAVE_CONTROL}, are asked to stop saving,
+ * all others are backed up without suspending their saving, unless that is disabled in the backup configuration.
+ *
+ * @author Niko
+ * @see BackupScheduler
+ * @since 1.0
+ */
+public final class BackupEvents {
+
+    /**
+     * Asks a server to write its worlds to disk and to stop saving them, like the save-all flush and save-off commands.
+     * Data: none.
+     */
+    public static final int REQ_SERVER_SAVE_OFF = 1010;
+
+    /**
+     * Answers {@link #REQ_SERVER_SAVE_OFF} after the worlds were written and saving stopped.
+     * Data: String - the id of the server.
+     */
+    public static final int RES_SERVER_SAVE_OFF = 1011;
+
+    /**
+     * Asks a server to save its worlds again, like the save-on command.
+     * Data: none.
+     */
+    public static final int REQ_SERVER_SAVE_ON = 1012;
+
+    /**
+     * Announces, that a server answers {@link #REQ_SERVER_SAVE_OFF}, sent once after the client connected.
+     * Data: String - the id of the server.
+     */
+    public static final int SERVER_SAVE_CONTROL = 1013;
+
+    private BackupEvents() {
+        throw new UnsupportedOperationException("BackupEvents is a constants class.");
+    }
+}
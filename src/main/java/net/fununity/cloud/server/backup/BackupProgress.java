@@ -0,0 +1,75 @@
+package net.fununity.cloud.server.backup;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The progress of a running backup.
+ * The total grows while the server directory is walked, so the percentage is only exact once the walk finished.
+ *
+ * @author Niko
+ * @see BackupStore#backup(String, java.nio.file.Path, BackupProgress, net.fununity.cloud.server.files.IoThrottle)
+ * @since 1.0
+ */
+public final class BackupProgress {
+
+    private final String serverId;
+    private final long startedAt;
+    private final AtomicInteger files;
+    private final AtomicLong totalBytes;
+    private final AtomicLong readBytes;
+
+    /**
+     * Creates the progress of a starting backup.
+     *
+     * @param serverId String - the id of the server.
+     * @since 1.0
+     */
+    public BackupProgress(String serverId) {
+        this.serverId = serverId;
+        this.startedAt = System.currentTimeMillis();
+        this.files = new AtomicInteger();
+        this.totalBytes = new AtomicLong();
+        this.readBytes = new AtomicLong();
+    }
+
+    void addFile(long changedBytes) {
+        files.incrementAndGet();
+        totalBytes.addAndGet(changedBytes);
+    }
+
+    void addRead(long bytes) {
+        readBytes.addAndGet(bytes);
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public int getFiles() {
+        return files.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public long getReadBytes() {
+        return readBytes.get();
+    }
+
+    /**
+     * Gets the percentage of the changed bytes, which were already read.
+     *
+     * @return int - the percentage between 0 and 100.
+     * @since 1.0
+     */
+    public int getPercent() {
+        long total = totalBytes.get();
+        return total == 0 ? 100 : (int) Math.min(100, readBytes.get() * 100 / total);
+    }
+}
@@ -0,0 +1,508 @@
+package net.fununity.cloud.server.backup;
+
+import net.fununity.cloud.common.events.cloud.CloudEvent;
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.client.ClientHandler;
+import net.fununity.cloud.server.files.IoThrottle;
+import net.fununity.cloud.server.files.ServerTrash;
+import net.fununity.cloud.server.misc.ServerUtils;
+import net.fununity.cloud.server.server.Server;
+import net.fununity.cloud.server.server.ServerHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Schedules periodic live backups of the running servers of persistent types.
+ * Every server gets an own offset in the interval out of its id, so the backups of servers started together are staggered.</p>
+ * <p>
+ * Backups run one after another on a worker thread and are limited to the configured bandwidth of written bytes.
+ * The worker only has the minimum thread priority, which is a hint for the CPU scheduler and does not lower its I/O priority,
+ * so the bandwidth limit is what keeps the backups from lagging the servers on the same disk.
+ * The interval and bandwidth are read out of the backup configuration file.</p>
+ * <p>
+ * Before a live backup a server, which announced {@link BackupEvents#SERVER_SAVE_CONTROL}, is asked to write its worlds
+ * to disk and to stop saving them, so no region or level file is read while it is written. Saving is resumed after the backup.
+ * Other servers and servers, which do not confirm this within {@link #SAVE_OFF_TIMEOUT} seconds, are backed up
+ * without suspending their saving and with a warning. If that is disabled in the configuration, their scheduled backups
+ * are skipped and reported by {@link #getSkipped()}, backups queued from the console are always made.</p>
+ * <p>
+ * Stopped servers are backed up by the same worker. Their directory is renamed into the pending backups,
+ * so the stop of the server does not wait for the backup and the server id can be reused immediately.
+ * A restarted server takes its pending directory back, if its backup did not start yet or failed.
+ * It waits at most {@link #RECLAIM_TIMEOUT} seconds for a running backup and restores the latest snapshot otherwise.</p>
+ *
+ * @author Niko
+ * @see ServerUtils#needsServerBackup(ServerType)
+ * @since 1.0
+ */
+public class BackupScheduler {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(BackupScheduler.class.getSimpleName());
+    private static final String FILE_NAME = "backup.properties";
+    private static final Path PENDING_PATH = Paths.get("./Servers/PendingBackups/");
+    private static final long CHECK_PERIOD = 60000;
+    private static final long DEFAULT_INTERVAL = 30;
+    private static final long DEFAULT_BANDWIDTH = 20;
+    private static final long SAVE_OFF_TIMEOUT = 30;
+    private static final long RECLAIM_TIMEOUT = 60;
+    private static BackupScheduler instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return BackupScheduler - the scheduler.
+     * @since 1.0
+     */
+    public static BackupScheduler getInstance() {
+        if (instance == null)
+            instance = new BackupScheduler();
+        return instance;
+    }
+
+    private final Map<String, Long> nextBackups;
+    private final LinkedBlockingQueue<BackupJob> queue;
+    private final Set<String> queuedIds;
+    private final Map<String, BackupJob> stoppedBackups;
+    private final Map<String, CountDownLatch> saveConfirmations;
+    private final Set<String> saveControlled;
+    private final Map<String, String> skipped;
+    private final Timer timer;
+    private boolean enabled;
+    private boolean unsuspended;
+    private long interval;
+    private IoThrottle throttle;
+    private volatile BackupProgress current;
+    private volatile BackupProgress last;
+
+    private BackupScheduler() {
+        instance = this;
+        this.nextBackups = new ConcurrentHashMap<>();
+        this.queue = new LinkedBlockingQueue<>();
+        this.queuedIds = ConcurrentHashMap.newKeySet();
+        this.stoppedBackups = new ConcurrentHashMap<>();
+        this.saveConfirmations = new ConcurrentHashMap<>();
+        this.saveControlled = ConcurrentHashMap.newKeySet();
+        this.skipped = new ConcurrentHashMap<>();
+        this.timer = new Timer("BackupScheduler", true);
+        loadConfig();
+        loadPendingBackups();
+
+        Thread worker = new Thread(this::runBackups, "BackupWorker");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                scheduleDueBackups();
+            }
+        }, CHECK_PERIOD, CHECK_PERIOD);
+    }
+
+    /**
+     * Loads the interval and bandwidth out of the backup configuration file.
+     * Will create the file with the defaults, if it does not exist.
+     */
+    private void loadConfig() {
+        Properties properties = new Properties();
+        try {
+            File file = new File(FILE_NAME);
+            if (!file.exists() && file.createNewFile())
+                Files.writeString(file.toPath(), """
+                        # periodic live backups of persistent server types
+                        enabled=true
+                        # minutes between two backups of a server
+                        interval=%s
+                        # maximum MB per second written by scheduled backups
+                        bandwidth=%s
+                        # back up servers, which cannot suspend their saving, anyway instead of skipping them
+                        unsuspended=true
+                        """.formatted(DEFAULT_INTERVAL, DEFAULT_BANDWIDTH));
+
+            try (Reader reader = Files.newBufferedReader(file.toPath())) {
+                properties.load(reader);
+            }
+        } catch (IOException exception) {
+            LOG.error("Could not load backup config, using defaults: " + exception.getMessage());
+        }
+
+        try {
+            this.enabled = Boolean.parseBoolean(properties.getProperty("enabled", "true"));
+            this.unsuspended = Boolean.parseBoolean(properties.getProperty("unsuspended", "true").trim());
+            this.interval = Math.max(1, Long.parseLong(properties.getProperty("interval", "" + DEFAULT_INTERVAL).trim())) * 60000;
+            long bandwidth = Math.max(1, Long.parseLong(properties.getProperty("bandwidth", "" + DEFAULT_BANDWIDTH).trim())) * 1024 * 1024;
+            this.throttle = new IoThrottle(bandwidth, bandwidth);
+        } catch (NumberFormatException exception) {
+            LOG.error("Illegal number in backup config, using defaults: " + exception.getMessage());
+            this.interval = DEFAULT_INTERVAL * 60000;
+            this.throttle = new IoThrottle(DEFAULT_BANDWIDTH * 1024 * 1024, DEFAULT_BANDWIDTH * 1024 * 1024);
+        }
+        LOG.info("Scheduled backups %s: every %s min, %s MB/s", enabled ? "enabled" : "disabled", interval / 60000,
+                throttle.getPermitsPerSecond() / 1024 / 1024);
+    }
+
+    /**
+     * Queues a live backup of the server, independent of its schedule.
+     *
+     * @param server Server - the server to back up.
+     * @param force  boolean - back up the server, even if it cannot suspend its saving and unsuspended backups are disabled.
+     * @return boolean - the server was queued and is not waiting for a backup yet.
+     * @since 1.0
+     */
+    public boolean queueBackup(Server server, boolean force) {
+        if (!queuedIds.add(server.getServerId()))
+            return false;
+        queue.add(new BackupJob(server.getServerId(), server.getServerType(), Path.of(server.getServerPath()), server, force,
+                new CountDownLatch(1), new AtomicBoolean()));
+        return true;
+    }
+
+    /**
+     * Moves the directory of a stopped server into the pending backups and queues its backup.
+     *
+     * @param serverId   String - the id of the server.
+     * @param serverType {@link ServerType} - the type of the server.
+     * @param directory  Path - the server directory.
+     * @throws IOException if the directory could not be moved atomically, it has to be backed up by the caller then.
+     * @since 1.0
+     */
+    public void queueStoppedBackup(String serverId, ServerType serverType, Path directory) throws IOException {
+        Path pending = PENDING_PATH.resolve(serverType.name()).resolve(serverId + "-" + System.currentTimeMillis());
+        Files.createDirectories(pending.getParent());
+        Files.move(directory, pending, StandardCopyOption.ATOMIC_MOVE);
+        BackupJob job = new BackupJob(serverId, serverType, pending, null, true, new CountDownLatch(1), new AtomicBoolean());
+        BackupJob previous = stoppedBackups.put(serverId, job);
+        // the directory of a failed backup was not reclaimed, the newer directory replaces it
+        if (previous != null && previous.failed.get())
+            trashStale(previous);
+        queue.add(job);
+    }
+
+    /**
+     * Moves the pending directory of a stopped server back, if its backup did not start yet or failed, as it is newer than every snapshot.
+     * Waits at most {@link #RECLAIM_TIMEOUT} seconds for a running backup of the server, so its latest snapshot can be restored afterwards.
+     *
+     * @param serverId String - the id of the server.
+     * @param target   Path - the server directory, which must not exist.
+     * @return boolean - the directory was moved back.
+     * @since 1.0
+     */
+    public boolean reclaimStoppedBackup(String serverId, Path target) {
+        BackupJob job = stoppedBackups.remove(serverId);
+        if (job == null)
+            return false;
+        if (!queue.remove(job) && (!awaitBackup(job) || !job.failed.get()))
+            return false;
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(job.directory, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException exception) {
+            LOG.warn("Could not move back pending backup of %s: %s", serverId, exception.getMessage());
+            stoppedBackups.putIfAbsent(serverId, job);
+            if (!job.failed.get()) {
+                queue.add(job);
+                awaitBackup(job);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Waits for the backup of a stopped server to finish.
+     */
+    private boolean awaitBackup(BackupJob job) {
+        try {
+            if (job.done.await(RECLAIM_TIMEOUT, TimeUnit.SECONDS))
+                return true;
+            LOG.warn("Backup of stopped server %s is still running after %s s, restoring its latest snapshot", job.serverId, RECLAIM_TIMEOUT);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Called when a server announced, that it can suspend its saving during a live backup.
+     *
+     * @param serverId String - the id of the server.
+     * @since 1.0
+     */
+    public void saveControlSupported(String serverId) {
+        saveControlled.add(serverId);
+    }
+
+    /**
+     * Called when a server confirmed, that it wrote its worlds and stopped saving them.
+     *
+     * @param serverId String - the id of the server.
+     * @since 1.0
+     */
+    public void savingSuspended(String serverId) {
+        CountDownLatch confirmation = saveConfirmations.get(serverId);
+        if (confirmation != null)
+            confirmation.countDown();
+    }
+
+    /**
+     * Gets the progress of the running backup.
+     *
+     * @return {@link BackupProgress} - the progress or null, if no backup is running.
+     * @since 1.0
+     */
+    public BackupProgress getCurrent() {
+        return current;
+    }
+
+    /**
+     * Gets the progress of the last finished backup.
+     *
+     * @return {@link BackupProgress} - the progress or null, if no backup finished yet.
+     * @since 1.0
+     */
+    public BackupProgress getLast() {
+        return last;
+    }
+
+    /**
+     * Gets the ids of the servers waiting for their backup.
+     *
+     * @return List<String> - the server ids.
+     * @since 1.0
+     */
+    public List<String> getQueued() {
+        return new ArrayList<>(queue.stream().map(BackupJob::serverId).toList());
+    }
+
+    /**
+     * Gets the time of the next scheduled backup of the server.
+     *
+     * @param serverId String - the id of the server.
+     * @return long - the time in milliseconds or -1, if no backup is scheduled.
+     * @since 1.0
+     */
+    public long getNextBackup(String serverId) {
+        return nextBackups.getOrDefault(serverId, -1L);
+    }
+
+    /**
+     * Gets the servers, whose last scheduled backup was skipped, as they could not suspend their saving.
+     *
+     * @return Map<String, String> - the reasons by the server ids.
+     * @since 1.0
+     */
+    public Map<String, String> getSkipped() {
+        return Map.copyOf(skipped);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void scheduleDueBackups() {
+        if (!enabled)
+            return;
+        long now = System.currentTimeMillis();
+        Set<String> active = new HashSet<>();
+        for (ServerType serverType : ServerType.values()) {
+            if (!ServerUtils.needsServerBackup(serverType))
+                continue;
+            for (Server server : ServerHandler.getInstance().getActiveServersByType(serverType)) {
+                if (server.getStartupTime() < 0)
+                    continue;
+                active.add(server.getServerId());
+                long next = nextBackups.computeIfAbsent(server.getServerId(), id -> now + Math.floorMod(id.hashCode(), interval));
+                if (next <= now && queueBackup(server, false))
+                    nextBackups.put(server.getServerId(), next + interval * ((now - next) / interval + 1));
+            }
+        }
+        nextBackups.keySet().retainAll(active);
+        // a stopped server has to announce its support again after its restart
+        saveControlled.removeIf(serverId -> ServerHandler.getInstance().getServerByIdentifier(serverId) == null);
+    }
+
+    private void runBackups() {
+        while (!Thread.currentThread().isInterrupted()) {
+            BackupJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                if (job.server != null)
+                    backupRunning(job);
+                else
+                    backupStopped(job);
+            } finally {
+                job.done.countDown();
+            }
+        }
+    }
+
+    private void backupRunning(BackupJob job) {
+        Server server = job.server;
+        queuedIds.remove(server.getServerId());
+        if (!ServerHandler.getInstance().getActiveServersByType(server.getServerType()).contains(server)) {
+            LOG.debug("Skipping backup of %s, it is not running anymore", server.getServerId());
+            return;
+        }
+
+        boolean saveControl = saveControlled.contains(server.getServerId());
+        CountDownLatch confirmation = new CountDownLatch(1);
+        BackupProgress progress = new BackupProgress(server.getServerId());
+        try {
+            String reason = "does not support suspending its saving";
+            if (saveControl) {
+                saveConfirmations.put(server.getServerId(), confirmation);
+                ClientHandler.getInstance().sendEvent(server, new CloudEvent(BackupEvents.REQ_SERVER_SAVE_OFF));
+                if (confirmation.await(SAVE_OFF_TIMEOUT, TimeUnit.SECONDS))
+                    reason = null;
+                else
+                    reason = "did not stop saving within " + SAVE_OFF_TIMEOUT + " s";
+            }
+            if (reason != null) {
+                if (!job.force && !unsuspended) {
+                    LOG.warn("Skipping backup of %s, it %s", server.getServerId(), reason);
+                    skipped.put(server.getServerId(), reason);
+                    return;
+                }
+                LOG.warn("Backing up %s without suspending its saving, it %s", server.getServerId(), reason);
+            }
+            current = progress;
+            BackupStore.getInstance().backup(server.getServerId(), Path.of(server.getServerPath()), progress, throttle);
+            skipped.remove(server.getServerId());
+            last = progress;
+        } catch (IOException exception) {
+            LOG.error("Backup of %s failed: %s", server.getServerId(), exception.getMessage());
+            last = progress;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            current = null;
+            if (saveControl) {
+                saveConfirmations.remove(server.getServerId(), confirmation);
+                ClientHandler.getInstance().sendEvent(server, new CloudEvent(BackupEvents.REQ_SERVER_SAVE_ON));
+            }
+        }
+    }
+
+    /**
+     * Backs up the pending directory of a stopped server and trashes it afterwards.
+     * A failed backup keeps the directory registered, so the next start of the server moves it back.
+     */
+    private void backupStopped(BackupJob job) {
+        BackupProgress progress = new BackupProgress(job.serverId);
+        current = progress;
+        try {
+            BackupStore.getInstance().backup(job.serverId, job.directory, progress, throttle);
+            stoppedBackups.remove(job.serverId, job);
+            ServerTrash.getInstance().trash(job.directory, job.serverType);
+            LOG.debug("Stopped server %s backed up", job.serverId);
+        } catch (IOException exception) {
+            job.failed.set(true);
+            LOG.error("Backup of stopped server %s failed, keeping %s: %s", job.serverId, job.directory, exception.getMessage());
+        } finally {
+            current = null;
+            last = progress;
+        }
+    }
+
+    /**
+     * Queues the backups of stopped servers, which were not finished before the last shutdown, the oldest first.
+     * Only the newest pending directory of a server is backed up and only if it is newer than the latest snapshot of the server,
+     * older directories are trashed, so they do not replace newer progress.
+     */
+    private void loadPendingBackups() {
+        if (!Files.isDirectory(PENDING_PATH))
+            return;
+        Map<String, BackupJob> newest = new HashMap<>();
+        Map<BackupJob, Long> stoppedAt = new HashMap<>();
+        try (DirectoryStream<Path> types = Files.newDirectoryStream(PENDING_PATH, Files::isDirectory)) {
+            for (Path type : types) {
+                ServerType serverType;
+                try {
+                    serverType = ServerType.valueOf(type.getFileName().toString());
+                } catch (IllegalArgumentException exception) {
+                    LOG.warn("Unknown server type in pending backups: %s", type);
+                    continue;
+                }
+                try (DirectoryStream<Path> directories = Files.newDirectoryStream(type, Files::isDirectory)) {
+                    for (Path directory : directories) {
+                        String name = directory.getFileName().toString();
+                        int separator = name.lastIndexOf('-');
+                        long time;
+                        try {
+                            time = Long.parseLong(name.substring(separator + 1));
+                        } catch (NumberFormatException exception) {
+                            LOG.warn("Illegal pending backup name: %s", directory);
+                            continue;
+                        }
+                        BackupJob job = new BackupJob(name.substring(0, Math.max(0, separator)), serverType, directory, null, true,
+                                new CountDownLatch(1), new AtomicBoolean());
+                        stoppedAt.put(job, time);
+                        BackupJob previous = newest.get(job.serverId);
+                        if (previous == null || stoppedAt.get(previous) < time) {
+                            newest.put(job.serverId, job);
+                            if (previous != null)
+                                trashStale(previous);
+                        } else {
+                            trashStale(job);
+                        }
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            LOG.error("Could not load pending backups: %s", exception.getMessage());
+        }
+        newest.values().stream().sorted(Comparator.comparing(stoppedAt::get)).forEach(job -> {
+            long lastSnapshot = BackupStore.getInstance().getSnapshots(job.serverId).stream().mapToLong(Long::longValue).max().orElse(0);
+            if (lastSnapshot > stoppedAt.get(job)) {
+                trashStale(job);
+                return;
+            }
+            stoppedBackups.put(job.serverId, job);
+            queue.add(job);
+        });
+        if (!queue.isEmpty())
+            LOG.info("Queued %s pending backups of stopped servers", queue.size());
+    }
+
+    private void trashStale(BackupJob job) {
+        LOG.warn("Trashing outdated pending backup %s", job.directory);
+        ServerTrash.getInstance().trash(job.directory, job.serverType);
+    }
+
+    /**
+     * A queued backup, either of a running server or of the pending directory of a stopped server.
+     */
+    private record BackupJob(String serverId, ServerType serverType, Path directory, Server server, boolean force, CountDownLatch done,
+                             AtomicBoolean failed) {
+    }
+}
@@ -0,0 +1,483 @@
+package net.fununity.cloud.server.backup;
+
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.files.IoThrottle;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ * Content addressed store for server backups.
+ * Files are split into fixed size chunks, every chunk is stored once by its SHA-256 hash and deflated on a pool of all cores.
+ * Each backup writes a {@link Snapshot} manifest, so a repeated backup only writes the chunks which changed
+ * and files with the same size and modification time as in the previous snapshot are not even read.</p>
+ * <p>
+ * The latest snapshots of every server are kept, chunks no snapshot references anymore are garbage collected.
+ * Restoring a snapshot syncs the server directory incrementally, streaming the chunks into the files
+ * and verifying the CRC32 of every restored file.</p>
+ * Fixed size chunks are used, as minecraft rewrites region files in place, so content defined chunking would not dedupe more.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class BackupStore {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(BackupStore.class.getSimpleName());
+    private static final Path STORE_PATH = Paths.get("./Servers/BackupStore/");
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String COMPRESSED_SUFFIX = ".z";
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_CHUNKS = 4;
+    private static final int KEEP_SNAPSHOTS = 5;
+    private static BackupStore instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return BackupStore - the store.
+     * @since 1.0
+     */
+    public static BackupStore getInstance() {
+        if (instance == null)
+            instance = new BackupStore();
+        return instance;
+    }
+
+    private final Path chunkPath;
+    private final Path snapshotPath;
+    private final ExecutorService executor;
+    private final ExecutorService compressor;
+    private final ReadWriteLock gcLock;
+
+    private BackupStore() {
+        instance = this;
+        this.chunkPath = STORE_PATH.resolve("chunks");
+        this.snapshotPath = STORE_PATH.resolve("snapshots");
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "BackupStore-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger compressorId = new AtomicInteger();
+        this.compressor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "BackupCompressor-" + compressorId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.gcLock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Backs up the server directory as a new snapshot.
+     * Older snapshots exceeding the retention are deleted afterwards.
+     *
+     * @param serverId  String - the id of the server.
+     * @param directory Path - the server directory.
+     * @return {@link Snapshot} - the created snapshot.
+     * @throws IOException if the directory could not be backed up.
+     * @since 1.0
+     */
+    public Snapshot backup(String serverId, Path directory) throws IOException {
+        return backup(serverId, directory, new BackupProgress(serverId), null);
+    }
+
+    /**
+     * Backs up the server directory as a new snapshot.
+     * If a throttle is given, the files are read one after another on the calling thread and every changed chunk
+     * acquires its size in bytes, so the backup does not occupy the pool needed by restores of starting servers.
+     *
+     * @param serverId  String - the id of the server.
+     * @param directory Path - the server directory.
+     * @param progress  {@link BackupProgress} - the progress to update.
+     * @param throttle  {@link IoThrottle} - the bandwidth limit or null.
+     * @return {@link Snapshot} - the created snapshot.
+     * @throws IOException if the directory could not be backed up.
+     * @since 1.0
+     */
+    public Snapshot backup(String serverId, Path directory, BackupProgress progress, IoThrottle throttle) throws IOException {
+        long start = System.currentTimeMillis();
+        Snapshot previous = getLatestSnapshot(serverId);
+        Map<String, Snapshot.FileEntry> previousFiles = new HashMap<>();
+        if (previous != null)
+            previous.getFiles().forEach(file -> previousFiles.put(file.getPath(), file));
+
+        List<String> directories = new ArrayList<>();
+        List<Future<Snapshot.FileEntry>> tasks = new ArrayList<>();
+        AtomicLong writtenBytes = new AtomicLong();
+
+        Snapshot snapshot;
+        gcLock.readLock().lock();
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    directories.add(directory.relativize(dir).toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    String relativePath = directory.relativize(file).toString();
+                    Snapshot.FileEntry unchanged = previousFiles.get(relativePath);
+                    if (unchanged != null && unchanged.getSize() == attrs.size() && unchanged.getLastModified() == attrs.lastModifiedTime().toMillis()) {
+                        progress.addFile(0);
+                        tasks.add(CompletableFuture.completedFuture(unchanged));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    progress.addFile(attrs.size());
+                    if (throttle == null) {
+                        tasks.add(executor.submit(() -> storeFile(file, relativePath, attrs, writtenBytes, progress, null)));
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        tasks.add(CompletableFuture.completedFuture(storeFile(file, relativePath, attrs, writtenBytes, progress, throttle)));
+                    } catch (IOException exception) {
+                        tasks.add(CompletableFuture.failedFuture(exception));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            List<Snapshot.FileEntry> files = awaitAll(tasks);
+            snapshot = new Snapshot(serverId, System.currentTimeMillis(), directories, files);
+            Path serverSnapshots = snapshotPath.resolve(serverId);
+            Files.createDirectories(serverSnapshots);
+            Path temp = serverSnapshots.resolve(snapshot.getCreatedAt() + SNAPSHOT_SUFFIX + ".tmp");
+            snapshot.write(temp);
+            Files.move(temp, serverSnapshots.resolve(snapshot.getCreatedAt() + SNAPSHOT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+
+            LOG.info("Backed up %s: %s files, %.1f MB, %.1f MB new compressed chunks in %s ms", serverId, files.size(),
+                    snapshot.getSize() / 1048576.0, writtenBytes.get() / 1048576.0, System.currentTimeMillis() - start);
+        } finally {
+            gcLock.readLock().unlock();
+        }
+        applyRetention(serverId);
+        return snapshot;
+    }
+
+    /**
+     * Restores a snapshot into the server directory.
+     * Files which match the snapshot are kept, all other files are deleted or rewritten.
+     *
+     * @param snapshot  {@link Snapshot} - the snapshot to restore.
+     * @param directory Path - the server directory.
+     * @throws IOException if the snapshot could not be restored.
+     * @since 1.0
+     */
+    public void restore(Snapshot snapshot, Path directory) throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, Snapshot.FileEntry> files = new HashMap<>();
+        snapshot.getFiles().forEach(file -> files.put(file.getPath(), file));
+        Set<String> directories = new HashSet<>(snapshot.getDirectories());
+
+        if (Files.isDirectory(directory)) {
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (directories.contains(directory.relativize(dir).toString()))
+                        return FileVisitResult.CONTINUE;
+                    FileUtils.deleteDirectory(dir.toFile());
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String relativePath = directory.relativize(file).toString();
+                    Snapshot.FileEntry entry = files.get(relativePath);
+                    if (entry == null)
+                        Files.delete(file);
+                    else if (entry.getSize() == attrs.size() && entry.getLastModified() == attrs.lastModifiedTime().toMillis())
+                        files.remove(relativePath);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        for (String dir : snapshot.getDirectories())
+            Files.createDirectories(directory.resolve(dir));
+
+        gcLock.readLock().lock();
+        try {
+            List<Future<Snapshot.FileEntry>> tasks = new ArrayList<>();
+            for (Snapshot.FileEntry entry : files.values())
+                tasks.add(executor.submit(() -> restoreFile(entry, directory.resolve(entry.getPath()))));
+            awaitAll(tasks);
+        } finally {
+            gcLock.readLock().unlock();
+        }
+        LOG.info("Restored snapshot %s of %s: rewrote %s of %s files in %s ms", snapshot.getCreatedAt(), snapshot.getServerId(),
+                files.size(), snapshot.getFiles().size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Gets the latest snapshot of the server.
+     *
+     * @param serverId String - the id of the server.
+     * @return {@link Snapshot} - the latest snapshot or null, if the server has none.
+     * @since 1.0
+     */
+    public Snapshot getLatestSnapshot(String serverId) {
+        List<Path> snapshots = getSnapshotFiles(serverId);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                return Snapshot.read(snapshots.get(i));
+            } catch (IOException exception) {
+                LOG.error("Could not read snapshot %s: %s", snapshots.get(i), exception.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the creation times of the snapshots of the server.
+     *
+     * @param serverId String - the id of the server.
+     * @return List<Long> - the creation times in milliseconds, oldest first.
+     * @since 1.0
+     */
+    public List<Long> getSnapshots(String serverId) {
+        return getSnapshotFiles(serverId).stream().map(this::getCreatedAt).toList();
+    }
+
+    /**
+     * Hashes the file chunk by chunk and hands new chunks to the compressor pool, so even a single large file is compressed in parallel.
+     * At most {@link #MAX_PENDING_CHUNKS} chunks per file are pending to bound the memory.
+     */
+    private Snapshot.FileEntry storeFile(Path file, String relativePath, BasicFileAttributes attrs, AtomicLong writtenBytes,
+                                         BackupProgress progress, IoThrottle throttle) throws IOException {
+        MessageDigest digest = createDigest();
+        HexFormat hex = HexFormat.of();
+        CRC32 crc = new CRC32();
+        List<String> chunks = new ArrayList<>();
+        Deque<Future<Long>> pending = new ArrayDeque<>();
+        long size = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+                digest.update(buffer, 0, read);
+                crc.update(buffer, 0, read);
+                progress.addRead(read);
+                String hash = hex.formatHex(digest.digest());
+                if (!chunkExists(hash)) {
+                    if (throttle != null)
+                        acquire(throttle, read);
+                    byte[] data = Arrays.copyOf(buffer, read);
+                    if (pending.size() >= MAX_PENDING_CHUNKS)
+                        writtenBytes.addAndGet(awaitAll(List.of(pending.poll())).get(0));
+                    pending.add(compressor.submit(() -> writeChunk(hash, data)));
+                }
+                chunks.add(hash);
+                size += read;
+            }
+        } finally {
+            writtenBytes.addAndGet(awaitAll(new ArrayList<>(pending)).stream().mapToLong(Long::longValue).sum());
+        }
+        return new Snapshot.FileEntry(relativePath, size, attrs.lastModifiedTime().toMillis(), crc.getValue(), chunks);
+    }
+
+    private long writeChunk(String hash, byte[] data) throws IOException {
+        Path chunk = getChunk(hash);
+        if (Files.exists(chunk))
+            return 0;
+        Files.createDirectories(chunk.getParent());
+        Path temp = Files.createTempFile(chunk.getParent(), hash, ".tmp");
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temp), deflater, BUFFER_SIZE)) {
+            out.write(data);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, chunk, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return Files.size(chunk);
+    }
+
+    /**
+     * Streams the chunks of the file into the target and verifies the checksum of the restored content.
+     */
+    private Snapshot.FileEntry restoreFile(Snapshot.FileEntry entry, Path target) throws IOException {
+        // the target may be a hardlink shared with other directories, so it must not be written into
+        Files.deleteIfExists(target);
+        CRC32 crc = new CRC32();
+        try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), BUFFER_SIZE), crc)) {
+            for (String hash : entry.getChunks()) {
+                try (InputStream in = openChunk(hash)) {
+                    in.transferTo(out);
+                }
+            }
+        }
+        if (entry.getChecksum() != Snapshot.NO_CHECKSUM && entry.getChecksum() != crc.getValue()) {
+            Files.deleteIfExists(target);
+            throw new IOException("Checksum mismatch while restoring " + entry.getPath());
+        }
+        Files.setLastModifiedTime(target, FileTime.fromMillis(entry.getLastModified()));
+        return entry;
+    }
+
+    private void acquire(IoThrottle throttle, long bytes) throws IOException {
+        try {
+            throttle.acquire(bytes);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup was interrupted");
+        }
+    }
+
+    private InputStream openChunk(String hash) throws IOException {
+        Path chunk = getChunk(hash);
+        if (Files.exists(chunk))
+            return new InflaterInputStream(Files.newInputStream(chunk), new Inflater(), BUFFER_SIZE);
+        return Files.newInputStream(getUncompressedChunk(hash));
+    }
+
+    private boolean chunkExists(String hash) {
+        return Files.exists(getChunk(hash)) || Files.exists(getUncompressedChunk(hash));
+    }
+
+    /**
+     * Deletes the snapshots of the server exceeding the retention and every chunk no snapshot references anymore.
+     */
+    private void applyRetention(String serverId) {
+        List<Path> snapshots = getSnapshotFiles(serverId);
+        if (snapshots.size() <= KEEP_SNAPSHOTS)
+            return;
+
+        gcLock.writeLock().lock();
+        try {
+            for (Path snapshot : snapshots.subList(0, snapshots.size() - KEEP_SNAPSHOTS))
+                Files.deleteIfExists(snapshot);
+
+            Set<String> referenced = new HashSet<>();
+            try (DirectoryStream<Path> servers = Files.newDirectoryStream(snapshotPath, Files::isDirectory)) {
+                for (Path server : servers) {
+                    for (Path snapshot : getSnapshotFiles(server.getFileName().toString()))
+                        Snapshot.read(snapshot).getFiles().forEach(file -> referenced.addAll(file.getChunks()));
+                }
+            }
+
+            AtomicInteger deleted = new AtomicInteger();
+            if (Files.isDirectory(chunkPath)) {
+                Files.walkFileTree(chunkPath, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        String name = file.getFileName().toString();
+                        if (!referenced.contains(name.endsWith(COMPRESSED_SUFFIX) ? name.substring(0, name.length() - COMPRESSED_SUFFIX.length()) : name)) {
+                            Files.delete(file);
+                            deleted.incrementAndGet();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            LOG.debug("Garbage collected %s chunks after backup of %s", deleted.get(), serverId);
+        } catch (IOException exception) {
+            LOG.error("Could not apply backup retention for %s: %s", serverId, exception.getMessage());
+        } finally {
+            gcLock.writeLock().unlock();
+        }
+    }
+
+    private List<Path> getSnapshotFiles(String serverId) {
+        Path serverSnapshots = snapshotPath.resolve(serverId);
+        if (!Files.isDirectory(serverSnapshots))
+            return Collections.emptyList();
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(serverSnapshots, "*" + SNAPSHOT_SUFFIX)) {
+            stream.forEach(snapshots::add);
+        } catch (IOException exception) {
+            LOG.error("Could not list snapshots of %s: %s", serverId, exception.getMessage());
+        }
+        snapshots.sort(Comparator.comparingLong(this::getCreatedAt));
+        return snapshots;
+    }
+
+    private long getCreatedAt(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private Path getChunk(String hash) {
+        return chunkPath.resolve(hash.substring(0, 2)).resolve(hash + COMPRESSED_SUFFIX);
+    }
+
+    private Path getUncompressedChunk(String hash) {
+        return chunkPath.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+    }
+
+    private <T> List<T> awaitAll(List<Future<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        IOException failure = null;
+        for (Future<T> task : tasks) {
+            try {
+                results.add(task.get());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                tasks.forEach(t -> t.cancel(false));
+                if (failure == null)
+                    failure = new IOException("Backup was interrupted", exception);
+            } catch (ExecutionException exception) {
+                if (failure == null)
+                    failure = exception.getCause() instanceof IOException ioException ? ioException : new IOException(exception.getCause());
+            }
+        }
+        if (failure != null)
+            throw failure;
+        return results;
+    }
+}
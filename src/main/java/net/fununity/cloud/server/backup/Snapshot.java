@@ -0,0 +1,197 @@
+package net.fununity.cloud.server.backup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * The manifest of one backup generation of a server.
+ * It lists every directory and every file with its CRC32 and the hashes of its chunks in the {@link BackupStore}.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public final class Snapshot {
+
+    private static final int MAGIC = 0x46554253;
+    private static final int VERSION = 2;
+    static final long NO_CHECKSUM = -1;
+    private static final int HASH_LENGTH = 32;
+
+    private final String serverId;
+    private final long createdAt;
+    private final List<String> directories;
+    private final List<FileEntry> files;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param serverId    String - the id of the backed up server.
+     * @param createdAt   long - the creation time in milliseconds.
+     * @param directories List<String> - the directories relative to the server directory.
+     * @param files       List<FileEntry> - the files.
+     * @since 1.0
+     */
+    Snapshot(String serverId, long createdAt, List<String> directories, List<FileEntry> files) {
+        this.serverId = serverId;
+        this.createdAt = createdAt;
+        this.directories = directories;
+        this.files = files;
+    }
+
+    /**
+     * Reads a snapshot manifest.
+     *
+     * @param path Path - the manifest file.
+     * @return Snapshot - the snapshot.
+     * @throws IOException if the manifest could not be read or is invalid.
+     * @since 1.0
+     */
+    static Snapshot read(Path path) throws IOException {
+        HexFormat hex = HexFormat.of();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(path + " is not a snapshot");
+            int version = in.readInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported snapshot version " + version + " of " + path);
+
+            String serverId = in.readUTF();
+            long createdAt = in.readLong();
+            int directoryCount = in.readInt();
+            List<String> directories = new ArrayList<>(directoryCount);
+            for (int i = 0; i < directoryCount; i++)
+                directories.add(in.readUTF());
+
+            int fileCount = in.readInt();
+            List<FileEntry> files = new ArrayList<>(fileCount);
+            byte[] hash = new byte[HASH_LENGTH];
+            for (int i = 0; i < fileCount; i++) {
+                String filePath = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                long checksum = version >= 2 ? in.readLong() : NO_CHECKSUM;
+                int chunkCount = in.readInt();
+                List<String> chunks = new ArrayList<>(chunkCount);
+                for (int j = 0; j < chunkCount; j++) {
+                    in.readFully(hash);
+                    chunks.add(hex.formatHex(hash));
+                }
+                files.add(new FileEntry(filePath, size, lastModified, checksum, chunks));
+            }
+            return new Snapshot(serverId, createdAt, directories, files);
+        }
+    }
+
+    /**
+     * Writes the snapshot manifest.
+     *
+     * @param path Path - the manifest file.
+     * @throws IOException if the manifest could not be written.
+     * @since 1.0
+     */
+    void write(Path path) throws IOException {
+        HexFormat hex = HexFormat.of();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(serverId);
+            out.writeLong(createdAt);
+            out.writeInt(directories.size());
+            for (String directory : directories)
+                out.writeUTF(directory);
+
+            out.writeInt(files.size());
+            for (FileEntry file : files) {
+                out.writeUTF(file.path);
+                out.writeLong(file.size);
+                out.writeLong(file.lastModified);
+                out.writeLong(file.checksum);
+                out.writeInt(file.chunks.size());
+                for (String chunk : file.chunks)
+                    out.write(hex.parseHex(chunk));
+            }
+        }
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<String> getDirectories() {
+        return Collections.unmodifiableList(directories);
+    }
+
+    public List<FileEntry> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Gets the size of the backed up server directory.
+     *
+     * @return long - the size in bytes.
+     * @since 1.0
+     */
+    public long getSize() {
+        return files.stream().mapToLong(FileEntry::getSize).sum();
+    }
+
+    /**
+     * One backed up file.
+     *
+     * @since 1.0
+     */
+    public static final class FileEntry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long checksum;
+        private final List<String> chunks;
+
+        FileEntry(String path, long size, long lastModified, long checksum, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.chunks = chunks;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the CRC32 of the content.
+         *
+         * @return long - the checksum or {@link Snapshot#NO_CHECKSUM}, if the snapshot was written without checksums.
+         * @since 1.0
+         */
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public List<String> getChunks() {
+            return Collections.unmodifiableList(chunks);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package net.fununity.cloud.server.cache;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import net.fununity.cloud.common.events.cloud.CloudEvent;
+import net.fununity.cloud.common.utils.CacheType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.client.ClientHandler;
+import net.fununity.cloud.server.misc.CacheHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Answers batched cache requests of the clients, e.g. a lobby fetching the data of many players at once.
+ * Every batch has an id chosen by the client, which is sent with every answer, so the client can correlate them.</p>
+ * <p>
+ * Gets are resolved on a small pool of worker threads and streamed in chunks of about {@link #CHUNK_BYTES},
+ * so the first values arrive before the last ones are resolved and no frame grows unbounded.
+ * A response stops at its maximum bytes, so a client can limit the latency of a batch.
+ * A running get can be cancelled by its id and is cancelled, when the channel of the client closes.
+ * A client has at most {@link #MAX_GETS_PER_CHANNEL} gets running or queued, further gets are answered with {@link CacheEvents#BATCH_BUSY}.</p>
+ * Puts are applied on the calling thread, so a following get of the same client already reads their values.
+ *
+ * @author Niko
+ * @see CacheEvents#REQ_CACHE_BATCH_GET
+ * @since 1.0
+ */
+public class CacheBatches {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(CacheBatches.class.getSimpleName());
+    private static final int THREADS = 2;
+    private static final int CHUNK_BYTES = 32 * 1024;
+    private static final int MAX_RESPONSE_BYTES = 4 * 1024 * 1024;
+    private static final int ENTRY_BYTES = 48;
+    private static final int MAX_GETS_PER_CHANNEL = 4;
+    private static CacheBatches instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return CacheBatches - the batches.
+     * @since 1.0
+     */
+    public static CacheBatches getInstance() {
+        if (instance == null)
+            instance = new CacheBatches();
+        return instance;
+    }
+
+    private final ExecutorService executor;
+    private final Map<Channel, Map<Long, Batch>> running;
+
+    private CacheBatches() {
+        instance = this;
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "CacheBatch-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.running = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Resolves a batched get in the background and streams the values to the client.
+     * A running get with the same id is cancelled, a get of a closed channel is dropped.
+     *
+     * @param ctx     ChannelHandlerContext - the client.
+     * @param request List<Object> - the id of the request, the maximum estimated bytes of the response, 0 or less for the default,
+     *                followed by pairs of CacheType and a List of keys.
+     * @since 1.0
+     */
+    public void get(ChannelHandlerContext ctx, List<Object> request) {
+        if (request.size() < 2 || !(request.get(0) instanceof Number requestId) || !(request.get(1) instanceof Number maxBytes)) {
+            LOG.warn("Malformed cache batch get header of %s", ClientHandler.getInstance().getClientId(ctx));
+            ClientHandler.getInstance().sendEvent(ctx, new CloudEvent(CacheEvents.RES_CACHE_BATCH_GET)
+                    .addData(getRequestId(request)).addData(0).addData(CacheEvents.BATCH_FAILED));
+            return;
+        }
+        get(ctx, requestId.longValue(), maxBytes.intValue(), request.subList(2, request.size()));
+    }
+
+    private void get(ChannelHandlerContext ctx, long requestId, int maxBytes, List<Object> batches) {
+        Channel channel = ctx.channel();
+        if (!channel.isActive())
+            return;
+        Map<Long, Batch> created = new ConcurrentHashMap<>();
+        Map<Long, Batch> existing = running.putIfAbsent(channel, created);
+        Map<Long, Batch> ofChannel = existing != null ? existing : created;
+        if (existing == null)
+            // registered after the map operation, as the listener runs at once on a channel closed in the meantime
+            channel.closeFuture().addListener(future -> cancelAll(channel));
+        // the requests of a channel are handled by its event loop one after another, so the check and the put do not race
+        if (ofChannel.size() >= MAX_GETS_PER_CHANNEL && !ofChannel.containsKey(requestId)) {
+            ClientHandler.getInstance().sendEvent(ctx, new CloudEvent(CacheEvents.RES_CACHE_BATCH_GET)
+                    .addData(requestId).addData(0).addData(CacheEvents.BATCH_BUSY));
+            return;
+        }
+        Batch batch = new Batch(ctx, requestId, maxBytes > 0 ? Math.min(maxBytes, MAX_RESPONSE_BYTES) : MAX_RESPONSE_BYTES,
+                new ArrayList<>(batches));
+        Batch previous = ofChannel.put(requestId, batch);
+        if (previous != null)
+            previous.cancelled = true;
+        executor.execute(() -> {
+            try {
+                resolve(batch);
+            } finally {
+                ofChannel.remove(requestId, batch);
+            }
+        });
+    }
+
+    /**
+     * Caches typed batches of values and answers with the amount of cached values.
+     *
+     * @param ctx     ChannelHandlerContext - the client.
+     * @param request List<Object> - the id of the request followed by triples of CacheType, a List of keys and a List of values.
+     * @since 1.0
+     */
+    public void put(ChannelHandlerContext ctx, List<Object> request) {
+        long requestId = getRequestId(request);
+        int cached = 0;
+        int status = CacheEvents.BATCH_COMPLETE;
+        try {
+            if (request.isEmpty() || !(request.get(0) instanceof Number))
+                throw new IllegalArgumentException("missing request id");
+            for (int i = 1; i + 2 < request.size(); i += 3) {
+                CacheType type = (CacheType) request.get(i);
+                List<?> keys = (List<?>) request.get(i + 1);
+                List<?> values = (List<?>) request.get(i + 2);
+                if (keys.size() != values.size())
+                    throw new IllegalArgumentException("got " + keys.size() + " keys but " + values.size() + " values of " + type);
+                for (int index = 0; index < keys.size(); index++) {
+                    CacheHandler.getInstance().put(type, keys.get(index), values.get(index));
+                    CacheSubscriptions.getInstance().changed(type, keys.get(index));
+                    cached++;
+                }
+            }
+        } catch (RuntimeException exception) {
+            LOG.warn("Malformed cache batch put %s of %s: %s", requestId, ClientHandler.getInstance().getClientId(ctx), exception.getMessage());
+            status = CacheEvents.BATCH_FAILED;
+        }
+        ClientHandler.getInstance().sendEvent(ctx, new CloudEvent(CacheEvents.RES_CACHE_BATCH_PUT)
+                .addData(requestId).addData(status).addData(cached));
+    }
+
+    /**
+     * Cancels a running get.
+     *
+     * @param ctx     ChannelHandlerContext - the client.
+     * @param request List<Object> - the id of the request.
+     * @return boolean - the get was still running.
+     * @since 1.0
+     */
+    public boolean cancel(ChannelHandlerContext ctx, List<Object> request) {
+        if (request.isEmpty() || !(request.get(0) instanceof Number requestId)) {
+            LOG.warn("Malformed cache batch cancel of %s", ClientHandler.getInstance().getClientId(ctx));
+            return false;
+        }
+        Map<Long, Batch> ofChannel = running.get(ctx.channel());
+        Batch batch = ofChannel != null ? ofChannel.remove(requestId.longValue()) : null;
+        if (batch == null)
+            return false;
+        batch.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Gets the amount of running gets.
+     *
+     * @return int - the amount of gets.
+     * @since 1.0
+     */
+    public int getRunningCount() {
+        return running.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Gets the id of a request for its answer, even if the request is malformed.
+     */
+    private static long getRequestId(List<Object> request) {
+        return !request.isEmpty() && request.get(0) instanceof Number requestId ? requestId.longValue() : -1;
+    }
+
+    private void cancelAll(Channel channel) {
+        Map<Long, Batch> ofChannel = running.remove(channel);
+        if (ofChannel != null)
+            ofChannel.values().forEach(batch -> batch.cancelled = true);
+    }
+
+    /**
+     * Resolves the keys of a get and sends a chunk every time it is full.
+     */
+    private void resolve(Batch batch) {
+        Chunk chunk = new Chunk(batch);
+        int responseBytes = 0;
+        try {
+            for (int i = 0; i + 1 < batch.batches.size(); i += 2) {
+                CacheType type = (CacheType) batch.batches.get(i);
+                for (Object key : (List<?>) batch.batches.get(i + 1)) {
+                    if (batch.cancelled || !batch.ctx.channel().isActive()) {
+                        chunk.send(CacheEvents.BATCH_CANCELLED);
+                        return;
+                    }
+                    Object value = CacheHandler.getInstance().get(type, key);
+                    int bytes = ENTRY_BYTES + estimate(key) + estimate(value);
+                    if (responseBytes + bytes > batch.maxBytes) {
+                        chunk.send(CacheEvents.BATCH_TRUNCATED);
+                        return;
+                    }
+                    responseBytes += bytes;
+                    if (chunk.bytes + bytes > CHUNK_BYTES && chunk.bytes > 0)
+                        chunk.send(CacheEvents.BATCH_MORE);
+                    chunk.add(type, key, value, bytes);
+                }
+            }
+            chunk.send(CacheEvents.BATCH_COMPLETE);
+        } catch (RuntimeException exception) {
+            LOG.warn("Malformed cache batch get %s of %s: %s", batch.requestId,
+                    ClientHandler.getInstance().getClientId(batch.ctx), exception.getMessage());
+            chunk.send(CacheEvents.BATCH_FAILED);
+        }
+    }
+
+    /**
+     * Estimates the serialized bytes of a key or value.
+     */
+    private static int estimate(Object object) {
+        if (object == null)
+            return 1;
+        if (object instanceof String string)
+            return 8 + string.length() * 3;
+        if (object instanceof UUID)
+            return 24;
+        if (object instanceof Number || object instanceof Boolean || object instanceof Enum<?>)
+            return 16;
+        return 128;
+    }
+
+    private static final class Batch {
+        private final ChannelHandlerContext ctx;
+        private final long requestId;
+        private final int maxBytes;
+        private final List<Object> batches;
+        private volatile boolean cancelled;
+
+        private Batch(ChannelHandlerContext ctx, long requestId, int maxBytes, List<Object> batches) {
+            this.ctx = ctx;
+            this.requestId = requestId;
+            this.maxBytes = maxBytes;
+            this.batches = batches;
+        }
+    }
+
+    /**
+     * The values collected for the next chunk of a get.
+     */
+    private static final class Chunk {
+        private final Batch batch;
+        private final List<Object> entries;
+        private int sequence;
+        private int bytes;
+
+        private Chunk(Batch batch) {
+            this.batch = batch;
+            this.entries = new ArrayList<>();
+        }
+
+        private void add(CacheType type, Object key, Object value, int bytes) {
+            entries.add(type);
+            entries.add(key);
+            entries.add(value);
+            this.bytes += bytes;
+        }
+
+        private void send(int status) {
+            CloudEvent event = new CloudEvent(CacheEvents.RES_CACHE_BATCH_GET)
+                    .addData(batch.requestId).addData(sequence++).addData(status);
+            entries.forEach(event::addData);
+            ClientHandler.getInstance().sendEvent(batch.ctx, event);
+            entries.clear();
+            bytes = 0;
+        }
+    }
+}
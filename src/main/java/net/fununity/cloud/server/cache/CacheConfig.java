@@ -0,0 +1,158 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * The configuration of one cache type.
+ * It converts the untyped keys and values of the cache events into the types of the store,
+ * holds the expiry and the bounds of the type and creates the store.
+ * Only heap and off heap stores expire, session stores keep their entries until they are removed.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @author Niko
+ * @since 1.0
+ */
+public final class CacheConfig<K, V> {
+
+    private final Function<Object, K> keyMapper;
+    private final Function<Object, V> valueMapper;
+    private final long ttl;
+    private final boolean refreshOnRead;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final Function<CacheConfig<K, V>, CacheStore<K, V>> storeFactory;
+
+    private CacheConfig(Function<Object, K> keyMapper, Function<Object, V> valueMapper, long ttl, boolean refreshOnRead,
+                        int maxEntries, long maxBytes, ToLongFunction<V> weigher, Function<CacheConfig<K, V>, CacheStore<K, V>> storeFactory) {
+        this.keyMapper = keyMapper;
+        this.valueMapper = valueMapper;
+        this.ttl = ttl;
+        this.refreshOnRead = refreshOnRead;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.storeFactory = storeFactory;
+    }
+
+    /**
+     * Creates an unbounded configuration.
+     *
+     * @param keyMapper   Function<Object, K> - converts the keys of the events.
+     * @param valueMapper Function<Object, V> - converts the values of the events.
+     * @param ttl         long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @return CacheConfig<K, V> - the configuration.
+     * @since 1.0
+     */
+    public static <K, V> CacheConfig<K, V> of(Function<Object, K> keyMapper, Function<Object, V> valueMapper, long ttl) {
+        return new CacheConfig<>(keyMapper, valueMapper, ttl, false, 0, 0, value -> 0,
+                config -> new ConcurrentCacheStore<>(config.ttl, config.refreshOnRead, config.maxEntries, config.maxBytes, config.weigher, null));
+    }
+
+    /**
+     * Creates a configuration of one field of the {@link PlayerSessions}, which is stored in a {@link SessionCacheStore}.
+     *
+     * @param sessions    PlayerSessions - the sessions.
+     * @param valueMapper Function<Object, V> - converts the values of the events.
+     * @param getter      Function<PlayerSession, V> - reads the field of a session.
+     * @param wither      BiFunction<PlayerSession, V, PlayerSession> - copies a session with another value of the field.
+     * @return CacheConfig<UUID, V> - the configuration.
+     * @since 1.0
+     */
+    public static <V> CacheConfig<UUID, V> session(PlayerSessions sessions, Function<Object, V> valueMapper,
+                                                   Function<PlayerSession, V> getter, BiFunction<PlayerSession, V, PlayerSession> wither) {
+        return new CacheConfig<>(key -> (UUID) key, valueMapper, -1, false, 0, 0, value -> 0,
+                config -> new SessionCacheStore<>(sessions, getter, wither));
+    }
+
+    /**
+     * Creates a configuration of string values, which are stored off heap in an {@link OffHeapCacheStore}.
+     * The byte bound of the configuration is the direct memory of the store.
+     *
+     * @param keyMapper Function<Object, K> - converts the keys of the events.
+     * @param ttl       long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @return CacheConfig<K, String> - the configuration.
+     * @since 1.0
+     */
+    public static <K> CacheConfig<K, String> offHeap(Function<Object, K> keyMapper, long ttl) {
+        return new CacheConfig<>(keyMapper, Object::toString, ttl, false, 0, 0, value -> 0,
+                config -> new OffHeapCacheStore<>(config.ttl, config.refreshOnRead, config.maxEntries, config.maxBytes));
+    }
+
+    /**
+     * Creates a copy of this configuration with bounds.
+     *
+     * @param maxEntries int - the maximum amount of entries, 0 or less for no bound.
+     * @param maxBytes   long - the maximum estimated bytes of all entries, 0 or less for no bound, ignored by session stores.
+     * @param weigher    ToLongFunction<V> - estimates the bytes of an entry, ignored by off heap stores.
+     * @return CacheConfig<K, V> - the bounded configuration.
+     * @since 1.0
+     */
+    public CacheConfig<K, V> bounded(int maxEntries, long maxBytes, ToLongFunction<V> weigher) {
+        return new CacheConfig<>(keyMapper, valueMapper, ttl, refreshOnRead, maxEntries, maxBytes, weigher, storeFactory);
+    }
+
+    /**
+     * Creates a copy of this configuration with another expiry.
+     *
+     * @param ttl           long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @param refreshOnRead boolean - a read renews the time to live of the entry.
+     * @return CacheConfig<K, V> - the configuration with the expiry.
+     * @since 1.0
+     */
+    public CacheConfig<K, V> expiring(long ttl, boolean refreshOnRead) {
+        return new CacheConfig<>(keyMapper, valueMapper, ttl, refreshOnRead, maxEntries, maxBytes, weigher, storeFactory);
+    }
+
+    /**
+     * Creates the store of the cache type.
+     *
+     * @return CacheStore<K, V> - a new empty store.
+     * @since 1.0
+     */
+    public CacheStore<K, V> createStore() {
+        return storeFactory.apply(this);
+    }
+
+    /**
+     * Estimates the bytes of a value with the weigher of the bounds, or out of its length, if it has no weigher.
+     *
+     * @param value V - the value.
+     * @return long - the estimated bytes.
+     * @since 1.0
+     */
+    public long weigh(V value) {
+        long weight = weigher != null ? weigher.applyAsLong(value) : 0;
+        if (weight > 0)
+            return weight;
+        return value instanceof String string ? 40 + 2L * string.length() : 16;
+    }
+
+    public K mapKey(Object key) {
+        return keyMapper.apply(key);
+    }
+
+    public V mapValue(Object value) {
+        return valueMapper.apply(value);
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public boolean isRefreshOnRead() {
+        return refreshOnRead;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
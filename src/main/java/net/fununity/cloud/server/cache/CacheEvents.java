@@ -0,0 +1,116 @@
+package net.fununity.cloud.server.cache;
+
+/**
+ * <p>
+ * Ids of the cache subscription and batch events.
+ * They are not part of the cloud events of the common library yet and have to be mirrored there with the same values,
+ * before a client can use them. The values are far above the ids of the common library, so they do not collide.</p>
+ * Keys and values of the events are the same objects as of {@link net.fununity.cloud.common.events.cloud.CloudEvent#REQ_CACHE_GET}.
+ *
+ * @author Niko
+ * @see CacheSubscriptions
+ * @see CacheBatches
+ * @since 1.0
+ */
+public final class CacheEvents {
+
+    /**
+     * Subscribes to cache types or keys.
+     * Data: Boolean - receive the new values instead of invalidations only, followed by pairs of CacheType and key,
+     * a null key subscribes to every key of the type.
+     */
+    public static final int REQ_CACHE_SUBSCRIBE = 1000;
+
+    /**
+     * Unsubscribes from cache types or keys.
+     * Data: pairs of CacheType and key like {@link #REQ_CACHE_SUBSCRIBE}, no pairs unsubscribe from everything.
+     */
+    public static final int REQ_CACHE_UNSUBSCRIBE = 1001;
+
+    /**
+     * Answers a subscription.
+     * Data: quadruples of CacheType, key, version and value, the value is null for subscriptions of a whole type.
+     */
+    public static final int RES_CACHE_SUBSCRIBE = 1002;
+
+    /**
+     * Pushes a changed key to a subscriber, which subscribed with values.
+     * Data: CacheType, key, version and the new value, null if the key was removed.
+     */
+    public static final int CACHE_DELTA = 1003;
+
+    /**
+     * Pushes a changed key to a subscriber, which subscribed without values.
+     * Data: CacheType, key and version.
+     */
+    public static final int CACHE_INVALIDATE = 1004;
+
+    /**
+     * Gets the values of typed key batches, answered with {@link #RES_CACHE_BATCH_GET} chunks.
+     * Data: Long - the request id, Integer - the maximum bytes of the whole response, 0 for the default,
+     * followed by pairs of CacheType and a List of keys.
+     */
+    public static final int REQ_CACHE_BATCH_GET = 1005;
+
+    /**
+     * Answers a part of a {@link #REQ_CACHE_BATCH_GET}, chunks are sent as soon as they are resolved.
+     * Data: Long - the request id, Integer - the sequence of the chunk starting with 0, Integer - the batch status,
+     * followed by triples of CacheType, key and value.
+     * Every chunk but the last one has the status {@link #BATCH_MORE}.
+     * A rejected or malformed get is answered with one empty chunk of the status {@link #BATCH_BUSY} or {@link #BATCH_FAILED},
+     * the request id is -1, if it could not be read.
+     */
+    public static final int RES_CACHE_BATCH_GET = 1006;
+
+    /**
+     * Caches typed batches of values, answered with {@link #RES_CACHE_BATCH_PUT}.
+     * Data: Long - the request id, followed by triples of CacheType, a List of keys and a List of values of the same size.
+     */
+    public static final int REQ_CACHE_BATCH_PUT = 1007;
+
+    /**
+     * Answers a {@link #REQ_CACHE_BATCH_PUT} after every value was cached.
+     * Data: Long - the request id, Integer - the batch status, Integer - the amount of cached values.
+     */
+    public static final int RES_CACHE_BATCH_PUT = 1008;
+
+    /**
+     * Cancels a running {@link #REQ_CACHE_BATCH_GET}, its last chunk has the status {@link #BATCH_CANCELLED}.
+     * Data: Long - the request id.
+     */
+    public static final int REQ_CACHE_BATCH_CANCEL = 1009;
+
+    /**
+     * Batch status: more chunks follow.
+     */
+    public static final int BATCH_MORE = 0;
+
+    /**
+     * Batch status: every key was answered.
+     */
+    public static final int BATCH_COMPLETE = 1;
+
+    /**
+     * Batch status: the response reached its maximum bytes, the keys after the last answered one were skipped.
+     */
+    public static final int BATCH_TRUNCATED = 2;
+
+    /**
+     * Batch status: the request was cancelled.
+     */
+    public static final int BATCH_CANCELLED = 3;
+
+    /**
+     * Batch status: the request was malformed, the keys after the last answered one were skipped.
+     */
+    public static final int BATCH_FAILED = 4;
+
+    /**
+     * Batch status: the get was rejected, as the client has too many gets running or queued, it may be sent again later.
+     */
+    public static final int BATCH_BUSY = 5;
+
+    private CacheEvents() {
+        throw new UnsupportedOperationException("CacheEvents is a constants class.");
+    }
+}
@@ -0,0 +1,90 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of the accesses to one cache type.
+ * They are striped {@link LongAdder}s, so the netty workers recording them on the hot path do not contend on one counter.
+ * Evictions, expirations and bytes are counted by the stores themselves.
+ * Accesses bypassing the {@link TypedCache}, like the session lookup of a server join, are recorded by their callers.
+ *
+ * @author Niko
+ * @see TypedCache#getMetrics()
+ * @since 1.0
+ */
+public final class CacheMetrics {
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder puts;
+    private final LongAdder removes;
+
+    CacheMetrics() {
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.puts = new LongAdder();
+        this.removes = new LongAdder();
+    }
+
+    public void recordGet(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    public void recordPut() {
+        puts.increment();
+    }
+
+    public void recordRemove() {
+        removes.increment();
+    }
+
+    /**
+     * Gets the amount of reads.
+     *
+     * @return long - the hits and misses.
+     * @since 1.0
+     */
+    public long getGets() {
+        return hits.sum() + misses.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getRemoves() {
+        return removes.sum();
+    }
+
+    /**
+     * Gets the share of reads, which found a value.
+     *
+     * @return double - the hit rate between 0 and 1, 0 if nothing was read yet.
+     * @since 1.0
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * Resets every counter.
+     *
+     * @since 1.0
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        puts.reset();
+        removes.reset();
+    }
+}
@@ -0,0 +1,282 @@
+package net.fununity.cloud.server.cache;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * A binary snapshot of the cache stores, which survives a restart of the cloud.
+ * The snapshot is streamed into a temporary file, which replaces the previous snapshot atomically.
+ * The header of a section is patched after its entries are written, so no section is buffered as a whole,
+ * and the values of off heap stores are copied as they are without decoding them.
+ * It is read through a read only memory mapping, only the table of the sections is read when it is opened,
+ * so every section can be restored on its own, when its cache is needed first.</p>
+ * <p>
+ * The file starts with a magic number, the version, the creation time and the amount of sections.
+ * Every section has the name of its cache type, the amount of entries and its length in bytes, followed by the entries.
+ * Keys and values are tagged: a tag byte is followed by an int, two longs of an uuid or the length and UTF-8 bytes of a string.</p>
+ * Entries with other types are not written.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public final class CacheSnapshot {
+
+    private static final int MAGIC = 0x46554353;
+    private static final int VERSION = 1;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_UUID = 2;
+    private static final byte TAG_STRING = 3;
+
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+    private final Map<String, Section> sections;
+
+    private CacheSnapshot(MappedByteBuffer buffer, long createdAt, Map<String, Section> sections) {
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+        this.sections = sections;
+    }
+
+    /**
+     * Writes a snapshot of the stores.
+     *
+     * @param file   Path - the snapshot file.
+     * @param stores Map<String, CacheStore<?, ?>> - the stores by the name of their cache type.
+     * @return int - the amount of written entries.
+     * @throws IOException if the snapshot could not be written.
+     * @since 1.0
+     */
+    public static int write(Path file, Map<String, CacheStore<?, ?>> stores) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int written = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            out.reserve(20).putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(stores.size());
+            for (Map.Entry<String, CacheStore<?, ?>> entry : stores.entrySet()) {
+                writeString(out, entry.getKey());
+                // the amount and the length are only known after the entries, so they are patched afterwards
+                long header = out.position();
+                out.reserve(12).putInt(0).putLong(0);
+                int count = writeEntries(out, entry.getValue());
+                long length = out.position() - header - 12;
+                out.flush();
+                out.patch(header, ByteBuffer.allocate(12).putInt(count).putLong(length).flip());
+                written += count;
+            }
+            out.flush();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    private static int writeEntries(ChannelOutput out, CacheStore<?, ?> store) throws IOException {
+        int[] count = new int[1];
+        IOException[] failure = new IOException[1];
+        if (store instanceof OffHeapCacheStore<?> offHeap) {
+            // the values are copied from the slabs as they are, they are already encoded in UTF-8
+            offHeap.forEachBytes((key, bytes) -> {
+                if (failure[0] != null || !isSupported(key))
+                    return;
+                try {
+                    writeTagged(out, key);
+                    out.reserve(5).put(TAG_STRING).putInt(bytes.remaining());
+                    out.write(bytes);
+                    count[0]++;
+                } catch (IOException exception) {
+                    failure[0] = exception;
+                }
+            });
+        } else {
+            store.forEach((key, value) -> {
+                if (failure[0] != null || !isSupported(key) || !isSupported(value))
+                    return;
+                try {
+                    writeTagged(out, key);
+                    writeTagged(out, value);
+                    count[0]++;
+                } catch (IOException exception) {
+                    failure[0] = exception;
+                }
+            });
+        }
+        if (failure[0] != null)
+            throw failure[0];
+        return count[0];
+    }
+
+    /**
+     * Maps a snapshot and reads the table of its sections.
+     *
+     * @param file Path - the snapshot file.
+     * @return CacheSnapshot - the snapshot.
+     * @throws IOException if the snapshot could not be mapped or is invalid.
+     * @since 1.0
+     */
+    public static CacheSnapshot open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException(file + " is not a cache snapshot");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported cache snapshot version " + version);
+            long createdAt = buffer.getLong();
+            int sectionCount = buffer.getInt();
+            Map<String, Section> sections = new HashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                String name = readString(buffer);
+                int count = buffer.getInt();
+                long length = buffer.getLong();
+                sections.put(name, new Section(buffer.position(), count));
+                buffer.position(Math.toIntExact(buffer.position() + length));
+            }
+            return new CacheSnapshot(buffer, createdAt, sections);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException | NegativeArraySizeException exception) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Checks if the snapshot contains a section.
+     *
+     * @param name String - the name of the cache type.
+     * @return boolean - the section exists.
+     * @since 1.0
+     */
+    public boolean hasSection(String name) {
+        return sections.containsKey(name);
+    }
+
+    /**
+     * Decodes every entry of a section.
+     *
+     * @param name     String - the name of the cache type.
+     * @param consumer BiConsumer<Object, Object> - receives the keys and values.
+     * @return int - the amount of entries.
+     * @throws IOException if the section is corrupted.
+     * @since 1.0
+     */
+    public int restore(String name, BiConsumer<Object, Object> consumer) throws IOException {
+        Section section = sections.get(name);
+        if (section == null)
+            return 0;
+        ByteBuffer reader = buffer.duplicate().position(section.offset);
+        try {
+            for (int i = 0; i < section.count; i++) {
+                Object key = readTagged(reader);
+                consumer.accept(key, readTagged(reader));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException exception) {
+            throw new IOException("Section " + name + " of the cache snapshot is corrupted");
+        }
+        return section.count;
+    }
+
+    private static boolean isSupported(Object object) {
+        return object instanceof Integer || object instanceof UUID || object instanceof String;
+    }
+
+    private static void writeTagged(ChannelOutput out, Object object) throws IOException {
+        if (object instanceof Integer value) {
+            out.reserve(5).put(TAG_INT).putInt(value);
+        } else if (object instanceof UUID uuid) {
+            out.reserve(17).put(TAG_UUID).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        } else {
+            out.reserve(1).put(TAG_STRING);
+            writeString(out, object.toString());
+        }
+    }
+
+    private static Object readTagged(ByteBuffer buffer) throws IOException {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case TAG_INT -> buffer.getInt();
+            case TAG_UUID -> new UUID(buffer.getLong(), buffer.getLong());
+            case TAG_STRING -> readString(buffer);
+            default -> throw new IOException("Unknown tag " + tag + " in cache snapshot");
+        };
+    }
+
+    private static void writeString(ChannelOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.reserve(4).putInt(bytes.length);
+        out.write(ByteBuffer.wrap(bytes));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Section(int offset, int count) {
+    }
+
+    /**
+     * Buffers the writes into a file channel, which are flushed when the buffer is full.
+     */
+    private static final class ChannelOutput {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        private ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private long position() throws IOException {
+            return channel.position() + buffer.position();
+        }
+
+        private ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+            return buffer;
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            if (bytes.remaining() <= buffer.remaining()) {
+                buffer.put(bytes);
+                return;
+            }
+            flush();
+            if (bytes.remaining() <= buffer.remaining())
+                buffer.put(bytes);
+            else
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+        }
+
+        private void patch(long position, ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining())
+                channel.write(bytes, position + bytes.position());
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
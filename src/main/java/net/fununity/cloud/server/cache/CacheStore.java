@@ -0,0 +1,118 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe store of one cache type.
+ * Reads must not block writers, as the stores are accessed by every netty worker at once.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @author Niko
+ * @see CacheConfig
+ * @since 1.0
+ */
+public interface CacheStore<K, V> {
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key K - the key.
+     * @return V - the value or null, if the key is not cached or expired.
+     * @since 1.0
+     */
+    V get(K key);
+
+    /**
+     * Caches a value and replaces the previous one atomically.
+     *
+     * @param key   K - the key.
+     * @param value V - the value.
+     * @since 1.0
+     */
+    void put(K key, V value);
+
+    /**
+     * Removes a key.
+     *
+     * @param key K - the key.
+     * @return boolean - the key was cached.
+     * @since 1.0
+     */
+    boolean remove(K key);
+
+    /**
+     * Removes the entries expired since the last purge.
+     * Called every second by the {@link net.fununity.cloud.server.misc.CacheHandler}, so it must not scan the whole store.
+     *
+     * @return int - the amount of removed entries.
+     * @since 1.0
+     */
+    int purgeExpired();
+
+    /**
+     * Gets the amount of cached entries, including expired ones not purged yet.
+     *
+     * @return int - the amount of entries.
+     * @since 1.0
+     */
+    int size();
+
+    /**
+     * Gets the amount of entries evicted because of the bounds of the store.
+     *
+     * @return long - the evictions, 0 if the store is not bounded.
+     * @since 1.0
+     */
+    default long getEvictions() {
+        return 0;
+    }
+
+    /**
+     * Gets the amount of entries removed because their time to live ran out.
+     *
+     * @return long - the expirations, 0 if the store does not expire.
+     * @since 1.0
+     */
+    default long getExpirations() {
+        return 0;
+    }
+
+    /**
+     * Gets the estimated bytes of the entries.
+     *
+     * @return long - the bytes, 0 if the store does not estimate them.
+     * @since 1.0
+     */
+    default long getBytes() {
+        return 0;
+    }
+
+    /**
+     * Passes every entry, which is not expired, to the consumer.
+     *
+     * @param consumer BiConsumer<K, V> - receives the entries.
+     * @since 1.0
+     */
+    void forEach(BiConsumer<K, V> consumer);
+
+    /**
+     * Passes the estimated bytes of every entry, which is not expired, to the consumer, as they are counted by {@link #getBytes()}.
+     *
+     * @param weigher  ToLongFunction<V> - estimates the bytes of a value, if the store does not know them.
+     * @param consumer ObjLongConsumer<K> - receives the keys and their bytes.
+     * @since 1.0
+     */
+    default void forEachWeight(ToLongFunction<V> weigher, ObjLongConsumer<K> consumer) {
+        forEach((key, value) -> consumer.accept(key, weigher.applyAsLong(value)));
+    }
+
+    /**
+     * Removes every entry.
+     *
+     * @since 1.0
+     */
+    void clear();
+}
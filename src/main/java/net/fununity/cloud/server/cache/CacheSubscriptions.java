@@ -0,0 +1,224 @@
+package net.fununity.cloud.server.cache;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import net.fununity.cloud.common.events.cloud.CloudEvent;
+import net.fununity.cloud.common.utils.CacheType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.client.ClientHandler;
+import net.fununity.cloud.server.misc.CacheHandler;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Pushes the changes of the caches to the clients, which subscribed to a cache type or single keys,
+ * so they can keep the values in a near cache instead of asking for them every time.</p>
+ * <p>
+ * Every cache type has a version, which is incremented on every change and sent with every value.
+ * A change is pushed with the value read out of the cache while the version is incremented,
+ * so the last push of a key always carries its current value and clients can drop pushes older than their version.</p>
+ * Every subscription of a type or key keeps its own mode,
+ * a client subscribed to a key and its whole type receives deltas, if one of both subscriptions asked for them.
+ * Subscriptions end when the channel of the client closes.
+ *
+ * @author Niko
+ * @see CacheEvents
+ * @since 1.0
+ */
+public class CacheSubscriptions {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(CacheSubscriptions.class.getSimpleName());
+    private static CacheSubscriptions instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return CacheSubscriptions - the subscriptions.
+     * @since 1.0
+     */
+    public static CacheSubscriptions getInstance() {
+        if (instance == null)
+            instance = new CacheSubscriptions();
+        return instance;
+    }
+
+    private final Map<Channel, Subscriber> subscribers;
+    private final Map<CacheType, Map<Subscriber, Boolean>> typeSubscribers;
+    private final Map<CacheType, Map<Object, Map<Subscriber, Boolean>>> keySubscribers;
+    private final Map<CacheType, AtomicLong> versions;
+
+    private CacheSubscriptions() {
+        instance = this;
+        this.subscribers = new ConcurrentHashMap<>();
+        this.typeSubscribers = new EnumMap<>(CacheType.class);
+        this.keySubscribers = new EnumMap<>(CacheType.class);
+        this.versions = new EnumMap<>(CacheType.class);
+        for (CacheType type : CacheType.values()) {
+            typeSubscribers.put(type, new ConcurrentHashMap<>());
+            keySubscribers.put(type, new ConcurrentHashMap<>());
+            versions.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Subscribes a client and answers with the current versions and values.
+     *
+     * @param ctx    ChannelHandlerContext - the client.
+     * @param deltas boolean - push the new values of these pairs instead of invalidations only.
+     * @param pairs  List<Object> - pairs of CacheType and key, a null key subscribes to the whole type.
+     * @since 1.0
+     */
+    public void subscribe(ChannelHandlerContext ctx, boolean deltas, List<Object> pairs) {
+        Channel channel = ctx.channel();
+        if (!channel.isActive())
+            return;
+        Subscriber created = new Subscriber(ctx);
+        Subscriber previous = subscribers.putIfAbsent(channel, created);
+        Subscriber subscriber = previous != null ? previous : created;
+        if (previous == null)
+            // registered after the map operation, as the listener runs at once on a channel closed in the meantime
+            channel.closeFuture().addListener(future -> unsubscribeAll(channel));
+
+        CloudEvent response = new CloudEvent(CacheEvents.RES_CACHE_SUBSCRIBE);
+        for (int i = 0; i + 1 < pairs.size(); i += 2) {
+            CacheType type = (CacheType) pairs.get(i);
+            Object key = pairs.get(i + 1);
+            synchronized (versions.get(type)) {
+                if (key == null) {
+                    typeSubscribers.get(type).put(subscriber, deltas);
+                    response.addData(type).addData(null).addData(versions.get(type).get()).addData(null);
+                } else {
+                    keySubscribers.get(type).compute(mapKey(type, key), (k, subscribed) -> {
+                        Map<Subscriber, Boolean> modes = subscribed != null ? subscribed : new ConcurrentHashMap<>();
+                        modes.put(subscriber, deltas);
+                        return modes;
+                    });
+                    response.addData(type).addData(key).addData(versions.get(type).get())
+                            .addData(CacheHandler.getInstance().getCache(type).peek(key));
+                }
+            }
+        }
+        if (!channel.isActive()) {
+            // the channel closed while the pairs were added, so the close listener may have missed them
+            removeSubscriber(subscriber);
+            return;
+        }
+        ClientHandler.getInstance().sendEvent(ctx, response);
+    }
+
+    /**
+     * Unsubscribes a client from cache types or keys.
+     *
+     * @param ctx   ChannelHandlerContext - the client.
+     * @param pairs List<Object> - pairs of CacheType and key, no pairs unsubscribe from everything.
+     * @since 1.0
+     */
+    public void unsubscribe(ChannelHandlerContext ctx, List<Object> pairs) {
+        if (pairs.isEmpty()) {
+            unsubscribeAll(ctx.channel());
+            return;
+        }
+        Subscriber subscriber = subscribers.get(ctx.channel());
+        if (subscriber == null)
+            return;
+        for (int i = 0; i + 1 < pairs.size(); i += 2) {
+            CacheType type = (CacheType) pairs.get(i);
+            Object key = pairs.get(i + 1);
+            if (key == null)
+                typeSubscribers.get(type).remove(subscriber);
+            else
+                removeKeySubscriber(type, mapKey(type, key), subscriber);
+        }
+    }
+
+    /**
+     * Pushes the change of a key to its subscribers.
+     * Must be called after the change was applied to the cache.
+     *
+     * @param type CacheType - the type of the cache.
+     * @param key  Object - the changed key.
+     * @since 1.0
+     */
+    public void changed(CacheType type, Object key) {
+        if (subscribers.isEmpty())
+            return;
+        Map<Subscriber, Boolean> ofType = typeSubscribers.get(type);
+        Map<Subscriber, Boolean> ofKey = keySubscribers.get(type).get(mapKey(type, key));
+        if (ofType.isEmpty() && (ofKey == null || ofKey.isEmpty()))
+            return;
+
+        synchronized (versions.get(type)) {
+            long version = versions.get(type).incrementAndGet();
+            Object value = CacheHandler.getInstance().getCache(type).peek(key);
+            ofType.forEach((subscriber, deltas) -> push(subscriber, type, key, version, value,
+                    deltas || (ofKey != null && Boolean.TRUE.equals(ofKey.get(subscriber)))));
+            if (ofKey != null) {
+                ofKey.forEach((subscriber, deltas) -> {
+                    if (!ofType.containsKey(subscriber))
+                        push(subscriber, type, key, version, value, deltas);
+                });
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of subscribed clients.
+     *
+     * @return int - the amount of clients.
+     * @since 1.0
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getVersion(CacheType type) {
+        return versions.get(type).get();
+    }
+
+    private void push(Subscriber subscriber, CacheType type, Object key, long version, Object value, boolean deltas) {
+        CloudEvent event;
+        if (deltas)
+            event = new CloudEvent(CacheEvents.CACHE_DELTA).addData(type).addData(key).addData(version).addData(value);
+        else
+            event = new CloudEvent(CacheEvents.CACHE_INVALIDATE).addData(type).addData(key).addData(version);
+        ClientHandler.getInstance().sendEvent(subscriber.ctx, event);
+    }
+
+    private void unsubscribeAll(Channel channel) {
+        Subscriber subscriber = subscribers.remove(channel);
+        if (subscriber == null)
+            return;
+        removeSubscriber(subscriber);
+        LOG.debug("Removed cache subscriptions of %s", channel);
+    }
+
+    private void removeSubscriber(Subscriber subscriber) {
+        subscribers.remove(subscriber.ctx.channel(), subscriber);
+        typeSubscribers.values().forEach(modes -> modes.remove(subscriber));
+        keySubscribers.forEach((type, keys) -> keys.keySet().forEach(key -> removeKeySubscriber(type, key, subscriber)));
+    }
+
+    private void removeKeySubscriber(CacheType type, Object key, Subscriber subscriber) {
+        keySubscribers.get(type).computeIfPresent(key, (k, subscribed) -> {
+            subscribed.remove(subscriber);
+            return subscribed.isEmpty() ? null : subscribed;
+        });
+    }
+
+    private Object mapKey(CacheType type, Object key) {
+        return CacheHandler.getInstance().getCache(type).getConfig().mapKey(key);
+    }
+
+    private static final class Subscriber {
+        private final ChannelHandlerContext ctx;
+
+        private Subscriber(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>
+ * A {@link CacheStore} backed by a {@link ConcurrentHashMap}.
+ * Reads are lock free, expired entries are removed when they are read or purged.</p>
+ * <p>
+ * Expiring entries are scheduled in a {@link TimingWheel} when they are put, so a purge only visits the entries due since
+ * the last purge instead of scanning the whole store. With refresh on read, a read only moves the deadline of the entry forward,
+ * the wheel reschedules the entry when its old deadline is reached.</p>
+ * <p>
+ * The store can be bounded by entries and estimated bytes.
+ * If a put exceeds a bound, entries are evicted with the CLOCK algorithm, an approximation of LRU:
+ * a read only sets the referenced flag of the entry and the eviction hand sweeps over the map,
+ * giving referenced entries a second chance and evicting the first entry, which was not read since the last sweep.
+ * New entries start referenced, so the data of a joining player is not evicted before the first server asked for it.</p>
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @author Niko
+ * @since 1.0
+ */
+public class ConcurrentCacheStore<K, V> implements CacheStore<K, V> {
+
+    private static final long TICK = 1000;
+
+    private final Map<K, Entry<K, V>> entries;
+    private final long ttl;
+    private final boolean refreshOnRead;
+    private final TimingWheel<Entry<K, V>> wheel;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final ToLongFunction<V> weigher;
+    private final BiConsumer<K, V> removalListener;
+    private final AtomicLong bytes;
+    private final AtomicLong evictions;
+    private final AtomicLong expirations;
+    private Iterator<Map.Entry<K, Entry<K, V>>> hand;
+
+    /**
+     * Creates an unbounded store.
+     *
+     * @param ttl long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @since 1.0
+     */
+    public ConcurrentCacheStore(long ttl) {
+        this(ttl, false, 0, 0, value -> 0, null);
+    }
+
+    /**
+     * Creates a bounded store.
+     *
+     * @param ttl        long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @param refreshOnRead boolean - a read renews the time to live of the entry.
+     * @param maxEntries int - the maximum amount of entries, 0 or less for no bound.
+     * @param maxBytes   long - the maximum estimated bytes of all entries, 0 or less for no bound.
+     * @param weigher    ToLongFunction<V> - estimates the bytes of an entry.
+     * @param removalListener BiConsumer<K, V> - receives every entry after it was removed, replaced, expired or evicted, may be null.
+     * @since 1.0
+     */
+    public ConcurrentCacheStore(long ttl, boolean refreshOnRead, int maxEntries, long maxBytes, ToLongFunction<V> weigher,
+                                BiConsumer<K, V> removalListener) {
+        this.entries = new ConcurrentHashMap<>();
+        this.ttl = ttl;
+        this.refreshOnRead = refreshOnRead && ttl > 0;
+        this.wheel = ttl > 0 ? new TimingWheel<>(TICK, System.currentTimeMillis()) : null;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+        this.bytes = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.expirations = new AtomicLong();
+    }
+
+    @Override
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null)
+            return null;
+        if (ttl > 0) {
+            long now = System.currentTimeMillis();
+            if (entry.isExpired(now)) {
+                if (removeEntry(key, entry))
+                    expirations.incrementAndGet();
+                return null;
+            }
+            // only write the deadline once per tick, so hot entries do not contend on it
+            if (refreshOnRead && now + ttl - entry.expiresAt >= TICK)
+                entry.expiresAt = now + ttl;
+        }
+        if (!entry.referenced)
+            entry.referenced = true;
+        return entry.value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        Entry<K, V> entry = new Entry<>(key, value, ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE, weigher.applyAsLong(value));
+        if (wheel != null)
+            entry.timer = wheel.schedule(entry, entry.expiresAt);
+        Entry<K, V> previous = entries.put(key, entry);
+        if (previous != null)
+            cancel(previous);
+        bytes.addAndGet(entry.weight - (previous != null ? previous.weight : 0));
+        if (previous != null && removalListener != null)
+            removalListener.accept(key, previous.value);
+        if (isOverCapacity())
+            evict();
+    }
+
+    @Override
+    public boolean remove(K key) {
+        Entry<K, V> entry = entries.remove(key);
+        if (entry == null)
+            return false;
+        cancel(entry);
+        bytes.addAndGet(-entry.weight);
+        if (removalListener != null)
+            removalListener.accept(key, entry.value);
+        return true;
+    }
+
+    @Override
+    public int purgeExpired() {
+        if (wheel == null)
+            return 0;
+        long now = System.currentTimeMillis();
+        int[] removed = new int[1];
+        wheel.advance(now, entry -> {
+            if (!entry.isExpired(now)) {
+                if (entries.get(entry.key) == entry)
+                    entry.timer = wheel.schedule(entry, entry.expiresAt);
+            } else if (removeEntry(entry.key, entry))
+                removed[0]++;
+        });
+        expirations.addAndGet(removed[0]);
+        return removed[0];
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, V> consumer) {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (!entry.isExpired(now))
+                consumer.accept(key, entry.value);
+        });
+    }
+
+    @Override
+    public void forEachWeight(ToLongFunction<V> weigher, ObjLongConsumer<K> consumer) {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (!entry.isExpired(now))
+                consumer.accept(key, entry.weight > 0 ? entry.weight : weigher.applyAsLong(entry.value));
+        });
+    }
+
+    @Override
+    public void clear() {
+        entries.keySet().forEach(this::remove);
+    }
+
+    /**
+     * Gets the estimated bytes of all entries.
+     *
+     * @return long - the bytes.
+     * @since 1.0
+     */
+    @Override
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Gets the amount of entries evicted because of the bounds.
+     *
+     * @return long - the evictions.
+     * @since 1.0
+     */
+    @Override
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the amount of entries removed because their time to live ran out.
+     *
+     * @return long - the expirations.
+     * @since 1.0
+     */
+    @Override
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    private boolean isOverCapacity() {
+        return (maxEntries > 0 && entries.size() > maxEntries) || (maxBytes > 0 && bytes.get() > maxBytes);
+    }
+
+    /**
+     * Moves the clock hand until the store is within its bounds again.
+     * The hand is a weakly consistent iterator, which is restarted after a full sweep.
+     * At most two sweeps are needed, as the first one clears every referenced flag.
+     */
+    private synchronized void evict() {
+        long steps = 2L * entries.size() + 1;
+        while (isOverCapacity() && steps-- > 0) {
+            if (hand == null || !hand.hasNext()) {
+                hand = entries.entrySet().iterator();
+                if (!hand.hasNext())
+                    return;
+            }
+            Map.Entry<K, Entry<K, V>> candidate = hand.next();
+            Entry<K, V> entry = candidate.getValue();
+            if (entry.referenced)
+                entry.referenced = false;
+            else if (removeEntry(candidate.getKey(), entry))
+                evictions.incrementAndGet();
+        }
+    }
+
+    private boolean removeEntry(K key, Entry<K, V> entry) {
+        if (!entries.remove(key, entry))
+            return false;
+        cancel(entry);
+        bytes.addAndGet(-entry.weight);
+        if (removalListener != null)
+            removalListener.accept(key, entry.value);
+        return true;
+    }
+
+    private void cancel(Entry<K, V> entry) {
+        TimingWheel.Node<Entry<K, V>> timer = entry.timer;
+        if (timer != null)
+            wheel.cancel(timer);
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long weight;
+        private volatile long expiresAt;
+        private volatile boolean referenced;
+        private volatile TimingWheel.Node<Entry<K, V>> timer;
+
+        private Entry(K key, V value, long expiresAt, long weight) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+            this.referenced = true;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package net.fununity.cloud.server.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>
+ * A {@link CacheStore} of large string values, e.g. the skin textures of the players, which keeps the values off heap.
+ * The values are encoded into blocks of a {@link SlabAllocator}, only the key and a small handle per entry stay on the heap.
+ * A value is decoded again every time it is read, so the strings only live shortly in the young generation.</p>
+ * Entries are managed by a bounded {@link ConcurrentCacheStore}, which frees the block of every removed, replaced or evicted entry.
+ * Values larger than the largest size class or not fitting into the slabs anymore are kept on the heap.
+ *
+ * @param <K> the type of the keys.
+ * @author Niko
+ * @since 1.0
+ */
+public class OffHeapCacheStore<K> implements CacheStore<K, String> {
+
+    private static final int READ_ATTEMPTS = 3;
+
+    private final SlabAllocator allocator;
+    private final ConcurrentCacheStore<K, OffHeapValue> entries;
+
+    /**
+     * Creates a store.
+     *
+     * @param ttl        long - the time to live of an entry in milliseconds, 0 or less for no expiry.
+     * @param refreshOnRead boolean - a read renews the time to live of the entry.
+     * @param maxEntries int - the maximum amount of entries, 0 or less for no bound.
+     * @param maxBytes   long - the maximum direct memory of the values.
+     * @since 1.0
+     */
+    public OffHeapCacheStore(long ttl, boolean refreshOnRead, int maxEntries, long maxBytes) {
+        this.allocator = new SlabAllocator(maxBytes);
+        // one block of the largest size class is kept free, so an eviction always makes room before the slabs are full
+        long maxValueBytes = Math.max(0, maxBytes - SlabAllocator.SIZE_CLASSES[SlabAllocator.SIZE_CLASSES.length - 1]);
+        this.entries = new ConcurrentCacheStore<>(ttl, refreshOnRead, maxEntries, maxValueBytes, OffHeapValue::getCapacity, this::release);
+    }
+
+    @Override
+    public String get(K key) {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            OffHeapValue value = entries.get(key);
+            if (value == null)
+                return null;
+            if (value.heap != null)
+                return new String(value.heap, StandardCharsets.UTF_8);
+            byte[] bytes = new byte[value.length];
+            if (allocator.read(value.handle, bytes))
+                return new String(bytes, StandardCharsets.UTF_8);
+            // the value was replaced while it was read, read the new one
+        }
+        return null;
+    }
+
+    @Override
+    public void put(K key, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long handle = allocator.allocate(bytes);
+        entries.put(key, handle < 0 ? new OffHeapValue(-1, bytes.length, bytes) : new OffHeapValue(handle, bytes.length, null));
+    }
+
+    @Override
+    public boolean remove(K key) {
+        return entries.remove(key);
+    }
+
+    @Override
+    public int purgeExpired() {
+        return entries.purgeExpired();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void forEach(BiConsumer<K, String> consumer) {
+        entries.forEach((key, value) -> {
+            String decoded = get(key);
+            if (decoded != null)
+                consumer.accept(key, decoded);
+        });
+    }
+
+    /**
+     * Iterates the UTF-8 bytes of the values without decoding them.
+     * The blocks are copied into one direct buffer, which is reused for every entry,
+     * so the consumer has to copy the bytes, if it needs them after it returns.
+     *
+     * @param consumer BiConsumer<K, ByteBuffer> - receives the keys and a buffer with the bytes between its position and its limit.
+     * @since 1.0
+     */
+    public void forEachBytes(BiConsumer<K, ByteBuffer> consumer) {
+        ByteBuffer block = ByteBuffer.allocateDirect(SlabAllocator.SIZE_CLASSES[SlabAllocator.SIZE_CLASSES.length - 1]);
+        entries.forEach((key, value) -> {
+            OffHeapValue current = value;
+            for (int attempt = 0; attempt < READ_ATTEMPTS && current != null; attempt++) {
+                if (current.heap != null) {
+                    consumer.accept(key, ByteBuffer.wrap(current.heap).asReadOnlyBuffer());
+                    return;
+                }
+                block.clear().limit(current.length);
+                if (allocator.read(current.handle, block)) {
+                    consumer.accept(key, block.asReadOnlyBuffer());
+                    return;
+                }
+                // the value was replaced while it was read, read the new one
+                current = entries.get(key);
+            }
+        });
+    }
+
+    /**
+     * Passes the size class of the block of every value without decoding it, or the length of a value kept on the heap.
+     *
+     * @param weigher  ToLongFunction<String> - ignored, the store knows the bytes of every value.
+     * @param consumer ObjLongConsumer<K> - receives the keys and their bytes.
+     * @since 1.0
+     */
+    @Override
+    public void forEachWeight(ToLongFunction<String> weigher, ObjLongConsumer<K> consumer) {
+        entries.forEachWeight(OffHeapValue::getCapacity, consumer);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public long getEvictions() {
+        return entries.getEvictions();
+    }
+
+    /**
+     * Gets the bytes of the values, the size classes of the blocks off heap and the length of the values on the heap.
+     *
+     * @return long - the bytes.
+     * @since 1.0
+     */
+    @Override
+    public long getBytes() {
+        return entries.getBytes();
+    }
+
+    /**
+     * Gets the amount of entries removed because their time to live ran out.
+     *
+     * @return long - the expirations.
+     * @since 1.0
+     */
+    @Override
+    public long getExpirations() {
+        return entries.getExpirations();
+    }
+
+    /**
+     * Gets the bytes of the blocks in use.
+     *
+     * @return long - the used direct memory.
+     * @since 1.0
+     */
+    public long getUsedBytes() {
+        return allocator.getUsedBytes();
+    }
+
+    /**
+     * Gets the direct memory allocated by the slabs.
+     *
+     * @return long - the allocated direct memory.
+     * @since 1.0
+     */
+    public long getAllocatedBytes() {
+        return allocator.getAllocatedBytes();
+    }
+
+    private void release(K key, OffHeapValue value) {
+        if (value.heap == null)
+            allocator.free(value.handle);
+    }
+
+    /**
+     * The handle of a value in the slabs, or the bytes of a value kept on the heap.
+     */
+    private static final class OffHeapValue {
+        private final long handle;
+        private final int length;
+        private final byte[] heap;
+
+        private OffHeapValue(long handle, int length, byte[] heap) {
+            this.handle = handle;
+            this.length = length;
+            this.heap = heap;
+        }
+
+        private long getCapacity() {
+            if (heap != null)
+                return heap.length;
+            int sizeClass = SlabAllocator.getSizeClass(length);
+            return SlabAllocator.SIZE_CLASSES[sizeClass];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.UUID;
+
+/**
+ * <p>
+ * The cached data of one online player, which every server needs when the player joins it.
+ * A session is immutable and replaced as a whole on every change, so a server join reads a consistent state with one lookup.</p>
+ * The permission group is kept as a primitive int, {@link #NO_PERMISSION_GROUP} marks a session without one.
+ * The texture is not part of the session, as it is kept off heap in its own store.
+ *
+ * @author Niko
+ * @see PlayerSessions
+ * @since 1.0
+ */
+public final class PlayerSession {
+
+    public static final int NO_PERMISSION_GROUP = Integer.MIN_VALUE;
+
+    static final PlayerSession EMPTY = new PlayerSession(NO_PERMISSION_GROUP, null, null);
+
+    private final int permissionGroup;
+    private final UUID party;
+    private final String lang;
+
+    /**
+     * Creates a session.
+     *
+     * @param permissionGroup int - the id of the permission group or {@link #NO_PERMISSION_GROUP}.
+     * @param party           UUID - the party or null.
+     * @param lang            String - the language or null.
+     * @since 1.0
+     */
+    public PlayerSession(int permissionGroup, UUID party, String lang) {
+        this.permissionGroup = permissionGroup;
+        this.party = party;
+        this.lang = lang;
+    }
+
+    public int getPermissionGroup() {
+        return permissionGroup;
+    }
+
+    public boolean hasPermissionGroup() {
+        return permissionGroup != NO_PERMISSION_GROUP;
+    }
+
+    public UUID getParty() {
+        return party;
+    }
+
+    public String getLang() {
+        return lang;
+    }
+
+    public PlayerSession withPermissionGroup(int permissionGroup) {
+        return new PlayerSession(permissionGroup, party, lang);
+    }
+
+    public PlayerSession withParty(UUID party) {
+        return new PlayerSession(permissionGroup, party, lang);
+    }
+
+    public PlayerSession withLang(String lang) {
+        return new PlayerSession(permissionGroup, party, lang);
+    }
+
+    /**
+     * Checks if the session holds no data anymore.
+     *
+     * @return boolean - the session has no permission group, party and language.
+     * @since 1.0
+     */
+    public boolean isEmpty() {
+        return !hasPermissionGroup() && party == null && lang == null;
+    }
+}
@@ -0,0 +1,111 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The sessions of the online players keyed by their uuid.
+ * A session is created on the network join of a player, updated by the cache events and removed on the network quit.
+ *
+ * @author Niko
+ * @see PlayerSession
+ * @see SessionCacheStore
+ * @since 1.0
+ */
+public class PlayerSessions {
+
+    private static final long SESSION_BYTES = 24;
+
+    private final UuidHashMap<PlayerSession> sessions;
+
+    /**
+     * Creates the sessions.
+     *
+     * @param maxSessions int - the maximum amount of sessions, 0 or less for no bound.
+     * @since 1.0
+     */
+    public PlayerSessions(int maxSessions) {
+        this.sessions = new UuidHashMap<>(maxSessions);
+    }
+
+    /**
+     * Gets the session of a player.
+     *
+     * @param uuid UUID - the uuid of the player.
+     * @return {@link PlayerSession} - the session or null, if the player has none.
+     * @since 1.0
+     */
+    public PlayerSession get(UUID uuid) {
+        return sessions.get(uuid);
+    }
+
+    /**
+     * Starts the session of a joining player, a party set before the join is kept.
+     *
+     * @param uuid            UUID - the uuid of the player.
+     * @param permissionGroup int - the id of the permission group.
+     * @param lang            String - the language.
+     * @since 1.0
+     */
+    public void join(UUID uuid, int permissionGroup, String lang) {
+        sessions.compute(uuid, session -> new PlayerSession(permissionGroup, session != null ? session.getParty() : null, lang));
+    }
+
+    /**
+     * Updates the session of a player atomically, a session without data is removed.
+     *
+     * @param uuid   UUID - the uuid of the player.
+     * @param update UnaryOperator<PlayerSession> - receives the current or an empty session and returns the new one.
+     * @since 1.0
+     */
+    public void update(UUID uuid, UnaryOperator<PlayerSession> update) {
+        sessions.compute(uuid, session -> {
+            PlayerSession updated = update.apply(session != null ? session : PlayerSession.EMPTY);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    /**
+     * Removes the session of a player.
+     *
+     * @param uuid UUID - the uuid of the player.
+     * @return boolean - the player had a session.
+     * @since 1.0
+     */
+    public boolean quit(UUID uuid) {
+        return sessions.remove(uuid) != null;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the amount of sessions evicted because of the maximum amount of sessions.
+     *
+     * @return long - the evictions.
+     * @since 1.0
+     */
+    public long getEvictions() {
+        return sessions.getEvictions();
+    }
+
+    /**
+     * Gets the estimated bytes of the table and the session objects, without the parties and languages they refer to.
+     *
+     * @return long - the bytes.
+     * @since 1.0
+     */
+    public long getBytes() {
+        return sessions.getTableBytes() + sessions.size() * SESSION_BYTES;
+    }
+
+    public void forEach(BiConsumer<UUID, PlayerSession> consumer) {
+        sessions.forEach(consumer);
+    }
+
+    public void clear() {
+        sessions.clear();
+    }
+}
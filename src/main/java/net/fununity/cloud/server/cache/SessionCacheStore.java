@@ -0,0 +1,96 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link CacheStore} view on one field of the {@link PlayerSessions}.
+ * The cache types of the session data keep their own store interface, but read and write the sessions.
+ * As they share the sessions, every view reports the evictions and bytes of all sessions.
+ *
+ * @param <V> the type of the field.
+ * @author Niko
+ * @since 1.0
+ */
+public class SessionCacheStore<V> implements CacheStore<UUID, V> {
+
+    private final PlayerSessions sessions;
+    private final Function<PlayerSession, V> getter;
+    private final BiFunction<PlayerSession, V, PlayerSession> wither;
+
+    /**
+     * Creates a view.
+     *
+     * @param sessions PlayerSessions - the sessions.
+     * @param getter   Function<PlayerSession, V> - reads the field of a session.
+     * @param wither   BiFunction<PlayerSession, V, PlayerSession> - copies a session with another value of the field.
+     * @since 1.0
+     */
+    public SessionCacheStore(PlayerSessions sessions, Function<PlayerSession, V> getter, BiFunction<PlayerSession, V, PlayerSession> wither) {
+        this.sessions = sessions;
+        this.getter = getter;
+        this.wither = wither;
+    }
+
+    @Override
+    public V get(UUID key) {
+        PlayerSession session = sessions.get(key);
+        return session != null ? getter.apply(session) : null;
+    }
+
+    @Override
+    public void put(UUID key, V value) {
+        sessions.update(key, session -> wither.apply(session, value));
+    }
+
+    @Override
+    public boolean remove(UUID key) {
+        if (get(key) == null)
+            return false;
+        sessions.update(key, session -> wither.apply(session, null));
+        return true;
+    }
+
+    @Override
+    public int purgeExpired() {
+        return 0;
+    }
+
+    @Override
+    public int size() {
+        int[] size = new int[1];
+        forEach((key, value) -> size[0]++);
+        return size[0];
+    }
+
+    @Override
+    public long getEvictions() {
+        return sessions.getEvictions();
+    }
+
+    @Override
+    public long getBytes() {
+        return sessions.getBytes();
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, V> consumer) {
+        sessions.forEach((key, session) -> {
+            V value = getter.apply(session);
+            if (value != null)
+                consumer.accept(key, value);
+        });
+    }
+
+    @Override
+    public void clear() {
+        // the keys are collected first, as the sessions must not be updated while they are iterated
+        List<UUID> keys = new ArrayList<>();
+        forEach((key, value) -> keys.add(key));
+        keys.forEach(this::remove);
+    }
+}
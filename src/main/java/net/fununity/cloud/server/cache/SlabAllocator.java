@@ -0,0 +1,179 @@
+package net.fununity.cloud.server.cache;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <p>
+ * Allocates blocks of direct memory out of slabs, so large cache values do not live on the heap.
+ * Every slab is a direct buffer of {@link #SLAB_SIZE} bytes split into blocks of one size class.
+ * Freed blocks are kept in a free list per size class and reused before a new slab is allocated, slabs are never released.</p>
+ * <p>
+ * Every block has a version, which is incremented when the block is freed.
+ * A reader copies the bytes without locking and validates the version afterwards,
+ * so a block freed and reused while it was read is detected like with a sequence lock.</p>
+ *
+ * @author Niko
+ * @see OffHeapCacheStore
+ * @since 1.0
+ */
+final class SlabAllocator {
+
+    static final int[] SIZE_CLASSES = {256, 512, 1024, 2048, 4096, 8192, 16384, 32768};
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int BLOCK_BITS = 16;
+
+    private final int maxSlabs;
+    private final ByteBuffer[] slabs;
+    private final AtomicIntegerArray[] versions;
+    private final int[] slabClasses;
+    private final int[][] freeLists;
+    private final int[] freeCounts;
+    private int slabCount;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param maxBytes long - the maximum direct memory of all slabs.
+     * @since 1.0
+     */
+    SlabAllocator(long maxBytes) {
+        this.maxSlabs = (int) Math.max(1, maxBytes / SLAB_SIZE);
+        this.slabs = new ByteBuffer[maxSlabs];
+        this.versions = new AtomicIntegerArray[maxSlabs];
+        this.slabClasses = new int[maxSlabs];
+        this.freeLists = new int[SIZE_CLASSES.length][64];
+        this.freeCounts = new int[SIZE_CLASSES.length];
+    }
+
+    /**
+     * Gets the size class of a length.
+     *
+     * @param length int - the length of the value.
+     * @return int - the index of the size class or -1, if the value is too large for a block.
+     * @since 1.0
+     */
+    static int getSizeClass(int length) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (length <= SIZE_CLASSES[i])
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates a block and writes the bytes into it.
+     *
+     * @param bytes byte[] - the bytes of the value.
+     * @return long - the block and its version or -1, if the value is too large or the allocator is full.
+     * @since 1.0
+     */
+    long allocate(byte[] bytes) {
+        int sizeClass = getSizeClass(bytes.length);
+        if (sizeClass < 0)
+            return -1;
+        int block;
+        ByteBuffer slab;
+        int version;
+        synchronized (this) {
+            if (freeCounts[sizeClass] == 0 && !addSlab(sizeClass))
+                return -1;
+            block = freeLists[sizeClass][--freeCounts[sizeClass]];
+            slab = slabs[block >>> BLOCK_BITS];
+            version = versions[block >>> BLOCK_BITS].get(block & 0xFFFF);
+        }
+        slab.put((block & 0xFFFF) * SIZE_CLASSES[sizeClass], bytes, 0, bytes.length);
+        return ((long) version << 32) | (block & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Copies the bytes of a block, if it was not freed in the meantime.
+     *
+     * @param handle long - the block and its version.
+     * @param dst    byte[] - receives the bytes, its length is the length of the value.
+     * @return boolean - the bytes are valid.
+     * @since 1.0
+     */
+    boolean read(long handle, byte[] dst) {
+        return read(handle, ByteBuffer.wrap(dst));
+    }
+
+    /**
+     * Copies the bytes of a block into a buffer without moving its position, if the block was not freed in the meantime.
+     *
+     * @param handle long - the block and its version.
+     * @param dst    ByteBuffer - receives the bytes between its position and its limit, the remaining bytes are the length of the value.
+     * @return boolean - the bytes are valid.
+     * @since 1.0
+     */
+    boolean read(long handle, ByteBuffer dst) {
+        int block = (int) handle;
+        int version = (int) (handle >>> 32);
+        ByteBuffer slab = slabs[block >>> BLOCK_BITS];
+        AtomicIntegerArray slabVersions = versions[block >>> BLOCK_BITS];
+        int index = block & 0xFFFF;
+        if (slabVersions.get(index) != version)
+            return false;
+        dst.put(dst.position(), slab, index * SIZE_CLASSES[slabClasses[block >>> BLOCK_BITS]], dst.remaining());
+        VarHandle.acquireFence();
+        return slabVersions.get(index) == version;
+    }
+
+    /**
+     * Frees a block, so it is reused by the next allocation of its size class.
+     *
+     * @param handle long - the block and its version.
+     * @since 1.0
+     */
+    synchronized void free(long handle) {
+        int block = (int) handle;
+        int version = (int) (handle >>> 32);
+        AtomicIntegerArray slabVersions = versions[block >>> BLOCK_BITS];
+        if (!slabVersions.compareAndSet(block & 0xFFFF, version, version + 1))
+            return;
+        int sizeClass = slabClasses[block >>> BLOCK_BITS];
+        if (freeCounts[sizeClass] == freeLists[sizeClass].length)
+            freeLists[sizeClass] = Arrays.copyOf(freeLists[sizeClass], freeLists[sizeClass].length * 2);
+        freeLists[sizeClass][freeCounts[sizeClass]++] = block;
+    }
+
+    /**
+     * Gets the direct memory of all slabs.
+     *
+     * @return long - the allocated bytes.
+     * @since 1.0
+     */
+    synchronized long getAllocatedBytes() {
+        return (long) slabCount * SLAB_SIZE;
+    }
+
+    /**
+     * Gets the bytes of all blocks in use.
+     *
+     * @return long - the used bytes.
+     * @since 1.0
+     */
+    synchronized long getUsedBytes() {
+        long used = (long) slabCount * SLAB_SIZE;
+        for (int sizeClass = 0; sizeClass < SIZE_CLASSES.length; sizeClass++)
+            used -= (long) freeCounts[sizeClass] * SIZE_CLASSES[sizeClass];
+        return used;
+    }
+
+    private boolean addSlab(int sizeClass) {
+        if (slabCount >= maxSlabs)
+            return false;
+        int slabIndex = slabCount++;
+        int blocks = SLAB_SIZE / SIZE_CLASSES[sizeClass];
+        slabs[slabIndex] = ByteBuffer.allocateDirect(SLAB_SIZE);
+        versions[slabIndex] = new AtomicIntegerArray(blocks);
+        slabClasses[slabIndex] = sizeClass;
+        if (freeLists[sizeClass].length - freeCounts[sizeClass] < blocks)
+            freeLists[sizeClass] = Arrays.copyOf(freeLists[sizeClass], freeCounts[sizeClass] + blocks);
+        for (int block = blocks - 1; block >= 0; block--)
+            freeLists[sizeClass][freeCounts[sizeClass]++] = (slabIndex << BLOCK_BITS) | block;
+        return true;
+    }
+}
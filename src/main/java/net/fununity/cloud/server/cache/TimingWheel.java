@@ -0,0 +1,175 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A hierarchical timing wheel, which schedules items for their deadline in constant time.
+ * It has {@link #LEVELS} wheels of {@link #SLOTS} slots, a slot of the first wheel covers one tick and a slot of every
+ * further wheel covers a whole turn of the previous one. Every slot is a doubly linked list, so an item is scheduled
+ * and cancelled without searching for it.</p>
+ * When the first wheel finished a turn, the next slot of the following wheel is cascaded down into the lower wheels.
+ * Advancing the wheel only visits the slots of the passed ticks and the items due in them, never all scheduled items.
+ * Deadlines beyond the last wheel are placed into its farthest slot and rescheduled when they are cascaded.
+ *
+ * @param <T> the type of the items.
+ * @author Niko
+ * @since 1.0
+ */
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Node<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a timing wheel.
+     *
+     * @param tickMillis long - the duration of a tick in milliseconds.
+     * @param now        long - the current time in milliseconds.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+        this.wheels = new Node[LEVELS][SLOTS];
+        for (Node<T>[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++)
+                wheel[slot] = new Node<>(null);
+        }
+    }
+
+    /**
+     * Schedules an item.
+     *
+     * @param item     T - the item.
+     * @param deadline long - the time in milliseconds, the item is due.
+     * @return Node<T> - the node of the item to cancel it.
+     * @since 1.0
+     */
+    synchronized Node<T> schedule(T item, long deadline) {
+        Node<T> node = new Node<>(item);
+        node.deadlineTick = toTick(deadline);
+        place(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Cancels a scheduled item.
+     *
+     * @param node Node<T> - the node of the item.
+     * @since 1.0
+     */
+    synchronized void cancel(Node<T> node) {
+        if (node.prev == null)
+            return;
+        unlink(node);
+        size--;
+    }
+
+    /**
+     * Advances the wheel to the current time and passes the due items to the consumer.
+     * The consumer is called after the lock of the wheel was released, so it may schedule items again.
+     *
+     * @param now      long - the current time in milliseconds.
+     * @param consumer Consumer<T> - receives the due items.
+     * @return int - the amount of due items.
+     * @since 1.0
+     */
+    int advance(long now, Consumer<T> consumer) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = now / tickMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                Node<T> head = wheels[0][(int) (currentTick & MASK)];
+                while (head.next != head) {
+                    Node<T> node = head.next;
+                    unlink(node);
+                    size--;
+                    due.add(node.item);
+                }
+            }
+        }
+        due.forEach(consumer);
+        return due.size();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Moves the items of the next slot of every wheel, whose previous wheel finished a turn, into the lower wheels.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (((currentTick >>> (SLOT_BITS * (level - 1))) & MASK) != 0)
+                return;
+            Node<T> head = wheels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & MASK)];
+            Node<T> node = head.next;
+            head.next = head;
+            head.prev = head;
+            while (node != head) {
+                Node<T> next = node.next;
+                place(node);
+                node = next;
+            }
+        }
+    }
+
+    private void place(Node<T> node) {
+        long deadlineTick = Math.max(node.deadlineTick, currentTick + 1);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1)))
+            level++;
+        if (delta >= 1L << (SLOT_BITS * LEVELS))
+            deadlineTick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        Node<T> head = wheels[level][(int) ((deadlineTick >>> (SLOT_BITS * level)) & MASK)];
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private void unlink(Node<T> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+    }
+
+    private long toTick(long time) {
+        return (time + tickMillis - 1) / tickMillis;
+    }
+
+    /**
+     * The node of a scheduled item in the list of its slot, the head of a slot has no item.
+     */
+    static final class Node<T> {
+        private final T item;
+        private Node<T> prev;
+        private Node<T> next;
+        private long deadlineTick;
+
+        private Node(T item) {
+            this.item = item;
+            if (item == null) {
+                this.prev = this;
+                this.next = this;
+            }
+        }
+    }
+}
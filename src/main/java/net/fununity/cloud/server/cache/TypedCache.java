@@ -0,0 +1,123 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The store of one cache type together with its configuration.
+ * It accepts the untyped keys and values of the cache events and converts them before they reach the store,
+ * and records every access in the {@link CacheMetrics} of the type.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ * @author Niko
+ * @since 1.0
+ */
+public final class TypedCache<K, V> {
+
+    private final CacheConfig<K, V> config;
+    private final CacheStore<K, V> store;
+    private final CacheMetrics metrics;
+
+    /**
+     * Creates the cache with a new store of the configuration.
+     *
+     * @param config CacheConfig<K, V> - the configuration.
+     * @since 1.0
+     */
+    public TypedCache(CacheConfig<K, V> config) {
+        this.config = config;
+        this.store = config.createStore();
+        this.metrics = new CacheMetrics();
+    }
+
+    /**
+     * Gets the cached value of an event key.
+     *
+     * @param key Object - the key of the event.
+     * @return V - the value or null, if it is not cached.
+     * @since 1.0
+     */
+    public V get(Object key) {
+        V value = store.get(config.mapKey(key));
+        metrics.recordGet(value != null);
+        return value;
+    }
+
+    /**
+     * Gets the cached value of an event key without recording the access, e.g. to push a change to subscribers.
+     *
+     * @param key Object - the key of the event.
+     * @return V - the value or null, if it is not cached.
+     * @since 1.0
+     */
+    public V peek(Object key) {
+        return store.get(config.mapKey(key));
+    }
+
+    /**
+     * Caches the value of an event.
+     *
+     * @param key   Object - the key of the event.
+     * @param value Object - the value of the event.
+     * @since 1.0
+     */
+    public void put(Object key, Object value) {
+        K mappedKey = config.mapKey(key);
+        V mappedValue = value != null ? config.mapValue(value) : null;
+        if (mappedValue == null) {
+            store.remove(mappedKey);
+            metrics.recordRemove();
+        } else {
+            store.put(mappedKey, mappedValue);
+            metrics.recordPut();
+        }
+    }
+
+    /**
+     * Removes the value of an event key.
+     *
+     * @param key Object - the key of the event.
+     * @return boolean - the key was cached.
+     * @since 1.0
+     */
+    public boolean remove(Object key) {
+        metrics.recordRemove();
+        return store.remove(config.mapKey(key));
+    }
+
+    /**
+     * Gets the largest entries of the store by their estimated bytes, as the store counts them.
+     * Walks over the whole store, so it is meant for the console and not for the hot path.
+     *
+     * @param limit int - the maximum amount of entries.
+     * @return List<Map.Entry<K, Long>> - the keys and their bytes, the largest first.
+     * @since 1.0
+     */
+    public List<Map.Entry<K, Long>> getLargestEntries(int limit) {
+        PriorityQueue<Map.Entry<K, Long>> largest = new PriorityQueue<>(Map.Entry.comparingByValue());
+        store.forEachWeight(config::weigh, (key, weight) -> {
+            largest.add(Map.entry(key, weight));
+            if (largest.size() > limit)
+                largest.poll();
+        });
+        List<Map.Entry<K, Long>> result = new ArrayList<>(largest);
+        result.sort(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder()));
+        return result;
+    }
+
+    public CacheConfig<K, V> getConfig() {
+        return config;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CacheStore<K, V> getStore() {
+        return store;
+    }
+}
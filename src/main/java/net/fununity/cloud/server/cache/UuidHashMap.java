@@ -0,0 +1,165 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * An open addressing hash map keyed by the two longs of a {@link UUID}, so no key object is kept per entry.
+ * Reads are optimistic and lock free, unless they race with a writer.
+ *
+ * @param <V> the type of the values.
+ * @author Niko
+ * @see UuidTable
+ * @since 1.0
+ */
+public class UuidHashMap<V> extends UuidTable<Object[]> {
+
+    /**
+     * Creates a map.
+     *
+     * @param maxEntries int - the maximum amount of entries, 0 or less for no bound.
+     * @since 1.0
+     */
+    public UuidHashMap(int maxEntries) {
+        super(maxEntries);
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key UUID - the key.
+     * @return V - the value or null, if the key is not contained.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public V get(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        long stamp = lock.tryOptimisticRead();
+        Table<Object[]> current = table;
+        int index = find(current, msb, lsb);
+        Object value = index >= 0 ? current.values()[index] : null;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = table;
+                index = find(current, msb, lsb);
+                value = index >= 0 ? current.values()[index] : null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (index >= 0)
+            touch(current, index);
+        return (V) value;
+    }
+
+    /**
+     * Puts the value of a key.
+     *
+     * @param key   UUID - the key.
+     * @param value V - the value, not null.
+     * @return V - the previous value or null.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public V put(UUID key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            int index = insert(key.getMostSignificantBits(), key.getLeastSignificantBits());
+            Object[] values = table.values();
+            Object previous = values[index];
+            values[index] = value;
+            return (V) previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Computes the value of a key atomically while holding the write lock.
+     *
+     * @param key       UUID - the key.
+     * @param remapping UnaryOperator<V> - receives the current value or null and returns the new value, null removes the key.
+     * @return V - the new value or null.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(UUID key, UnaryOperator<V> remapping) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        long stamp = lock.writeLock();
+        try {
+            int index = find(table, msb, lsb);
+            V value = remapping.apply(index >= 0 ? (V) table.values()[index] : null);
+            if (value == null) {
+                if (index >= 0)
+                    removeAt(index);
+                return null;
+            }
+            index = insert(msb, lsb);
+            table.values()[index] = value;
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key UUID - the key.
+     * @return V - the removed value or null, if the key was not contained.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(UUID key) {
+        long stamp = lock.writeLock();
+        try {
+            int index = find(table, key.getMostSignificantBits(), key.getLeastSignificantBits());
+            if (index < 0)
+                return null;
+            Object previous = table.values()[index];
+            removeAt(index);
+            return (V) previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Passes every entry to the consumer while holding the read lock.
+     *
+     * @param consumer BiConsumer<UUID, V> - receives the entries.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<UUID, V> consumer) {
+        long stamp = lock.readLock();
+        try {
+            Table<Object[]> current = table;
+            for (int i = 0; i < current.used().length; i++) {
+                if (current.used()[i] != 0)
+                    consumer.accept(new UUID(current.msb()[i], current.lsb()[i]), (V) current.values()[i]);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    protected Object[] newValues(int capacity) {
+        return new Object[capacity];
+    }
+
+    @Override
+    protected void copyValue(Object[] from, int fromIndex, Object[] to, int toIndex) {
+        to[toIndex] = from[fromIndex];
+    }
+
+    @Override
+    protected void clearValue(Object[] values, int index) {
+        values[index] = null;
+    }
+}
@@ -0,0 +1,252 @@
+package net.fununity.cloud.server.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>
+ * Base of the open addressing hash tables keyed by the two longs of a {@link java.util.UUID}.
+ * Keys are stored in primitive arrays with linear probing and removed with backward shifting, so there are no tombstones
+ * and an entry costs no object besides its value.</p>
+ * <p>
+ * Writers hold the write lock of a {@link StampedLock}, readers probe optimistically and only take the read lock,
+ * if a write happened in the meantime. All arrays of a capacity are held by one {@link Table}, which is replaced on a resize,
+ * so an optimistic reader always probes consistent arrays.</p>
+ * A table can be bounded by entries, it evicts with the CLOCK algorithm over its slots then.
+ *
+ * @param <A> the type of the value array.
+ * @author Niko
+ * @since 1.0
+ */
+abstract class UuidTable<A> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    protected final StampedLock lock;
+    private final int maxEntries;
+    private final AtomicLong evictions;
+    protected volatile Table<A> table;
+    private int size;
+    private int hand;
+
+    /**
+     * Creates a table.
+     *
+     * @param maxEntries int - the maximum amount of entries, 0 or less for no bound.
+     * @since 1.0
+     */
+    UuidTable(int maxEntries) {
+        this.lock = new StampedLock();
+        this.maxEntries = maxEntries;
+        this.evictions = new AtomicLong();
+        this.table = createTable(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates the value array of a capacity.
+     */
+    protected abstract A newValues(int capacity);
+
+    /**
+     * Copies a value between two value arrays.
+     */
+    protected abstract void copyValue(A from, int fromIndex, A to, int toIndex);
+
+    /**
+     * Clears a value, so it can be garbage collected.
+     */
+    protected abstract void clearValue(A values, int index);
+
+    /**
+     * Finds the slot of a key.
+     * Must only be called with a table read out of {@link #table} once, it may be called without a lock.
+     *
+     * @return int - the slot or -1, if the key is not contained.
+     */
+    protected static int find(Table<?> table, long msb, long lsb) {
+        int mask = table.msb.length - 1;
+        int index = hash(msb, lsb) & mask;
+        for (int probes = 0; probes <= mask && table.used[index] != 0; probes++) {
+            if (table.msb[index] == msb && table.lsb[index] == lsb)
+                return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Marks a slot as read for the eviction.
+     * The race with concurrent writers only affects the accuracy of the eviction.
+     */
+    protected static void touch(Table<?> table, int index) {
+        if (table.referenced[index] == 0)
+            table.referenced[index] = 1;
+    }
+
+    /**
+     * Gets or creates the slot of a key, resizes or evicts if needed.
+     * Must be called with the write lock.
+     *
+     * @return int - the slot in the current table.
+     */
+    protected int insert(long msb, long lsb) {
+        int index = find(table, msb, lsb);
+        if (index >= 0) {
+            table.referenced[index] = 1;
+            return index;
+        }
+        if (maxEntries > 0 && size >= maxEntries)
+            evict();
+        if ((size + 1) * 10L > table.msb.length * 7L)
+            resize(table.msb.length * 2);
+
+        Table<A> current = table;
+        int mask = current.msb.length - 1;
+        index = hash(msb, lsb) & mask;
+        while (current.used[index] != 0)
+            index = (index + 1) & mask;
+        current.msb[index] = msb;
+        current.lsb[index] = lsb;
+        current.referenced[index] = 1;
+        current.used[index] = 1;
+        size++;
+        return index;
+    }
+
+    /**
+     * Removes the entry of a slot and shifts the following entries of its cluster back.
+     * Must be called with the write lock.
+     */
+    protected void removeAt(int index) {
+        Table<A> current = table;
+        int mask = current.msb.length - 1;
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (current.used[next] != 0) {
+            int home = hash(current.msb[next], current.lsb[next]) & mask;
+            // the entry may fill the hole, if its home slot is not inside (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                current.msb[hole] = current.msb[next];
+                current.lsb[hole] = current.lsb[next];
+                current.referenced[hole] = current.referenced[next];
+                copyValue(current.values, next, current.values, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        current.used[hole] = 0;
+        current.referenced[hole] = 0;
+        current.msb[hole] = 0;
+        current.lsb[hole] = 0;
+        clearValue(current.values, hole);
+        size--;
+    }
+
+    /**
+     * Removes every entry.
+     *
+     * @since 1.0
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = createTable(MIN_CAPACITY);
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the amount of entries.
+     *
+     * @return int - the amount of entries.
+     * @since 1.0
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the amount of entries evicted because of the bound.
+     *
+     * @return long - the evictions.
+     * @since 1.0
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the estimated bytes of the arrays of the table without the values.
+     *
+     * @return long - the bytes.
+     * @since 1.0
+     */
+    public long getTableBytes() {
+        return table.msb.length * 18L;
+    }
+
+    private void evict() {
+        Table<A> current = table;
+        int mask = current.msb.length - 1;
+        for (int steps = 0; steps < 2 * current.msb.length; steps++) {
+            int index = hand;
+            hand = (hand + 1) & mask;
+            if (current.used[index] == 0)
+                continue;
+            if (current.referenced[index] != 0) {
+                current.referenced[index] = 0;
+                continue;
+            }
+            removeAt(index);
+            evictions.incrementAndGet();
+            // the shifted entry now in this slot was not visited yet
+            hand = index;
+            return;
+        }
+    }
+
+    private void resize(int capacity) {
+        Table<A> old = table;
+        Table<A> resized = createTable(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.msb.length; i++) {
+            if (old.used[i] == 0)
+                continue;
+            int index = hash(old.msb[i], old.lsb[i]) & mask;
+            while (resized.used[index] != 0)
+                index = (index + 1) & mask;
+            resized.msb[index] = old.msb[i];
+            resized.lsb[index] = old.lsb[i];
+            resized.referenced[index] = old.referenced[i];
+            resized.used[index] = 1;
+            copyValue(old.values, i, resized.values, index);
+        }
+        table = resized;
+        hand = 0;
+    }
+
+    private Table<A> createTable(int capacity) {
+        return new Table<>(new long[capacity], new long[capacity], new byte[capacity], new byte[capacity], newValues(capacity));
+    }
+
+    private static int hash(long msb, long lsb) {
+        long hash = msb ^ Long.rotateLeft(lsb, 32);
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (hash ^ (hash >>> 33));
+    }
+
+    /**
+     * The arrays of one capacity.
+     */
+    protected record Table<A>(long[] msb, long[] lsb, byte[] used, byte[] referenced, A values) {
+    }
+}
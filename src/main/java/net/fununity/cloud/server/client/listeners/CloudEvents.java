@@ -5,6 +5,8 @@ import net.fununity.cloud.common.events.cloud.CloudEvent;
 import net.fununity.cloud.common.events.cloud.CloudEventListener;
 import net.fununity.cloud.common.server.ServerDefinition;
 import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.server.backup.BackupEvents;
+import net.fununity.cloud.server.backup.BackupScheduler;
 import net.fununity.cloud.server.client.ClientHandler;
 import net.fununity.cloud.server.misc.MinigameHandler;
 import net.fununity.cloud.server.server.Server;
@@ -66,7 +68,9 @@ public class CloudEvents implements CloudEventListener {
                 }
 
                 ClientHandler.getLogger().info("Client registered: " + def.getServerId());
-                serverHandler.checkStartQueue(ServerHandler.getInstance().getServerByIdentifier(def.getServerId()));
+                server = serverHandler.getServerByIdentifier(def.getServerId());
+                server.clientRegistered();
+                serverHandler.startSucceeded(server);
             }
             case CloudEvent.CLIENT_DISCONNECT_GRACEFULLY -> {
                 serverId = cloudEvent.getData().get(0).toString();
@@ -85,6 +89,10 @@ public class CloudEvents implements CloudEventListener {
                 if (server != null)
                     server.receivedClientAliveResponse();
             }
+            case BackupEvents.SERVER_SAVE_CONTROL ->
+                    BackupScheduler.getInstance().saveControlSupported(cloudEvent.getData().get(0).toString());
+            case BackupEvents.RES_SERVER_SAVE_OFF ->
+                    BackupScheduler.getInstance().savingSuspended(cloudEvent.getData().get(0).toString());
             case CloudEvent.FORWARD_TO_BUNGEE ->
                     serverHandler.sendToBungeeCord((CloudEvent) cloudEvent.getData().get(0));
             case CloudEvent.NOTIFY_SERVER_PLAYER_COUNT -> {
@@ -1,15 +1,19 @@
 package net.fununity.cloud.server.client.listeners;
 
 import io.netty.channel.ChannelHandlerContext;
-import net.fununity.cloud.common.cache.KeyValueCache;
 import net.fununity.cloud.common.events.EventPriority;
 import net.fununity.cloud.common.events.cloud.CloudEvent;
 import net.fununity.cloud.common.events.cloud.CloudEventListener;
 import net.fununity.cloud.common.utils.CacheType;
+import net.fununity.cloud.server.cache.CacheBatches;
+import net.fununity.cloud.server.cache.CacheEvents;
+import net.fununity.cloud.server.cache.CacheSubscriptions;
+import net.fununity.cloud.server.cache.PlayerSession;
 import net.fununity.cloud.server.client.ClientHandler;
 import net.fununity.cloud.server.misc.CacheHandler;
 import net.fununity.cloud.server.server.ServerHandler;
 
+import java.util.List;
 import java.util.UUID;
 
 public class CloudEventsCache implements CloudEventListener {
@@ -47,11 +51,14 @@ public class CloudEventsCache implements CloudEventListener {
                 event = new CloudEvent(CloudEvent.CACHE_CLOUD_ANSWER).setEventPriority(EventPriority.HIGH);
                 event.addData(cloudEvent.getUniqueId());
                 UUID uuid = (UUID) cloudEvent.getData().get(2);
-                CloudEvent joinData = new CloudEvent(CloudEvent.CACHE_PLAYER_JOIN_DATA)
-                        .addData(getCachedObject(CacheType.CACHE_PLAYER_PERMISSION_GROUP, uuid))
-                        .addData(getCachedObject(CacheType.CACHE_PLAYER_PARTY, uuid))
-                        .addData(getCachedObject(CacheType.CACHE_PLAYER_LANG, uuid))
-                        .addData(getCachedObject(CacheType.CACHE_PLAYER_TEXTURE, uuid));
+                PlayerSession session = CacheHandler.getInstance().getSession(uuid);
+                CloudEvent joinData = new CloudEvent(CloudEvent.CACHE_PLAYER_JOIN_DATA);
+                if (session != null)
+                    joinData.addData(session.hasPermissionGroup() ? session.getPermissionGroup() : null)
+                            .addData(session.getParty()).addData(session.getLang());
+                else
+                    joinData.addData(null).addData(null).addData(null);
+                joinData.addData(getCachedObject(CacheType.CACHE_PLAYER_TEXTURE, uuid));
                 event.addData(joinData);
 
                 ctx = (ChannelHandlerContext) cloudEvent.getData().get(cloudEvent.getData().size() - 1);
@@ -65,9 +72,10 @@ public class CloudEventsCache implements CloudEventListener {
                 serverSize = Integer.parseInt(cloudEvent.getData().get(0).toString());
                 uuid = (UUID) cloudEvent.getData().get(1);
                 int permissionGroupId = Integer.parseInt(cloudEvent.getData().get(2).toString());
-                cacheObject(CacheType.CACHE_PLAYER_PERMISSION_GROUP, uuid, permissionGroupId);
                 String lang = cloudEvent.getData().get(3).toString();
-                cacheObject(CacheType.CACHE_PLAYER_LANG, uuid, lang);
+                CacheHandler.getInstance().joinSession(uuid, permissionGroupId, lang);
+                CacheSubscriptions.getInstance().changed(CacheType.CACHE_PLAYER_PERMISSION_GROUP, uuid);
+                CacheSubscriptions.getInstance().changed(CacheType.CACHE_PLAYER_LANG, uuid);
                 String skin = cloudEvent.getData().get(4).toString();
                 cacheObject(CacheType.CACHE_PLAYER_TEXTURE, uuid, skin);
                 ServerHandler.getInstance().setPlayerCountOfNetwork(serverSize);
@@ -75,78 +83,53 @@ public class CloudEventsCache implements CloudEventListener {
             case CloudEvent.CACHE_PLAYER_NETWORK_QUIT:
                 serverSize = Integer.parseInt(cloudEvent.getData().get(0).toString());
                 uuid = (UUID) cloudEvent.getData().get(1);
-                removeCacheObject(CacheType.CACHE_PLAYER_PERMISSION_GROUP, uuid);
-                removeCacheObject(CacheType.CACHE_PLAYER_PARTY, uuid);
+                if (CacheHandler.getInstance().quitSession(uuid)) {
+                    CacheSubscriptions.getInstance().changed(CacheType.CACHE_PLAYER_PERMISSION_GROUP, uuid);
+                    CacheSubscriptions.getInstance().changed(CacheType.CACHE_PLAYER_PARTY, uuid);
+                    CacheSubscriptions.getInstance().changed(CacheType.CACHE_PLAYER_LANG, uuid);
+                }
+                removeCacheObject(CacheType.CACHE_PLAYER_TEXTURE, uuid);
                 ServerHandler.getInstance().setPlayerCountOfNetwork(serverSize);
                 break;
+            case CacheEvents.REQ_CACHE_SUBSCRIBE:
+                List<Object> data = cloudEvent.getData();
+                ctx = (ChannelHandlerContext) data.get(data.size() - 1);
+                CacheSubscriptions.getInstance().subscribe(ctx, Boolean.TRUE.equals(data.get(0)), data.subList(1, data.size() - 1));
+                break;
+            case CacheEvents.REQ_CACHE_UNSUBSCRIBE:
+                data = cloudEvent.getData();
+                ctx = (ChannelHandlerContext) data.get(data.size() - 1);
+                CacheSubscriptions.getInstance().unsubscribe(ctx, data.subList(0, data.size() - 1));
+                break;
+            case CacheEvents.REQ_CACHE_BATCH_GET:
+                data = cloudEvent.getData();
+                ctx = (ChannelHandlerContext) data.get(data.size() - 1);
+                CacheBatches.getInstance().get(ctx, data.subList(0, data.size() - 1));
+                break;
+            case CacheEvents.REQ_CACHE_BATCH_PUT:
+                data = cloudEvent.getData();
+                ctx = (ChannelHandlerContext) data.get(data.size() - 1);
+                CacheBatches.getInstance().put(ctx, data.subList(0, data.size() - 1));
+                break;
+            case CacheEvents.REQ_CACHE_BATCH_CANCEL:
+                data = cloudEvent.getData();
+                ctx = (ChannelHandlerContext) data.get(data.size() - 1);
+                CacheBatches.getInstance().cancel(ctx, data.subList(0, data.size() - 1));
+                break;
         }
     }
 
     private void removeCacheObject(CacheType type, Object cacheKey) {
-        CacheHandler cacheHandler = CacheHandler.getInstance();
-        if (cacheHandler.exists(type)) {
-            cacheHandler.getCache(type).remove(cacheKey);
-        }
+        CacheHandler.getInstance().remove(type, cacheKey);
+        CacheSubscriptions.getInstance().changed(type, cacheKey);
     }
 
     private void cacheObject(CacheType type, Object cacheKey, Object cacheData) {
-        CacheHandler cacheHandler = CacheHandler.getInstance();
-        switch (type) {
-            case CACHE_PLAYER_DATA:
-                if (!cacheHandler.exists(type))
-                    cacheHandler.addCache(type, new KeyValueCache<String, String>(10 * 60 * 1000L));
-                KeyValueCache<String, String> cache = cacheHandler.getCache(type);
-                cache.put(cacheKey.toString(), cacheData.toString());
-                break;
-            case CACHE_PLAYER_PERMISSION_GROUP:
-                if (!cacheHandler.exists(type))
-                    cacheHandler.addCache(type, new KeyValueCache<UUID, Integer>(-1));
-                KeyValueCache<UUID, Integer> cache_perm = cacheHandler.getCache(type);
-                cache_perm.put((UUID) cacheKey, Integer.parseInt(cacheData.toString()));
-                break;
-            case CACHE_PLAYER_PARTY:
-                if (!cacheHandler.exists(type))
-                    cacheHandler.addCache(type, new KeyValueCache<UUID, UUID>(-1));
-                KeyValueCache<UUID, UUID> cache_party = cacheHandler.getCache(type);
-                cache_party.put((UUID) cacheKey, (UUID) cacheData);
-                break;
-            default:
-                if (!cacheHandler.exists(type))
-                    cacheHandler.addCache(type, new KeyValueCache<UUID, String>(-1));
-                KeyValueCache<UUID, String> cache_default = cacheHandler.getCache(type);
-                cache_default.put((UUID) cacheKey, cacheData.toString());
-                break;
-        }
+        CacheHandler.getInstance().put(type, cacheKey, cacheData);
+        CacheSubscriptions.getInstance().changed(type, cacheKey);
     }
 
     private Object getCachedObject(CacheType type, Object cacheKey) {
-        CacheHandler cacheHandler = CacheHandler.getInstance();
-        Object cacheValue = null;
-        if (cacheHandler.exists(type)) {
-            switch (type) {
-                case CACHE_PLAYER_DATA:
-                    KeyValueCache<String, String> cache = cacheHandler.getCache(type);
-                    if (cache.containsKey(cacheKey.toString())) {
-                        cacheValue = cache.get(cacheKey.toString());
-                    }
-                    break;
-                case CACHE_PLAYER_PERMISSION_GROUP:
-                    KeyValueCache<UUID, Integer> cachePerm = cacheHandler.getCache(type);
-                    if (cachePerm.containsKey((UUID) cacheKey))
-                        cacheValue = cachePerm.get((UUID) cacheKey);
-                    break;
-                case CACHE_PLAYER_PARTY:
-                    KeyValueCache<UUID, UUID> cacheParty = cacheHandler.getCache(type);
-                    if (cacheParty.containsKey((UUID) cacheKey))
-                        cacheValue = cacheParty.get((UUID) cacheKey);
-                    break;
-                default:
-                    KeyValueCache<UUID, String> cacheDef = cacheHandler.getCache(type);
-                    if (cacheDef.containsKey((UUID) cacheKey))
-                        cacheValue = cacheDef.get((UUID) cacheKey);
-                    break;
-            }
-        }
-        return cacheValue;
+        return CacheHandler.getInstance().get(type, cacheKey);
     }
 }
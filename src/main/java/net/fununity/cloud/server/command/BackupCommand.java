@@ -1,10 +1,17 @@
 package net.fununity.cloud.server.command;
 
+import net.fununity.cloud.server.backup.BackupProgress;
+import net.fununity.cloud.server.backup.BackupScheduler;
+import net.fununity.cloud.server.backup.BackupStore;
 import net.fununity.cloud.server.command.handler.Command;
 import net.fununity.cloud.server.server.Server;
 import net.fununity.cloud.server.server.ServerHandler;
 
-import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * The backup command of the cloud.
@@ -14,12 +21,14 @@ import java.io.IOException;
  */
 public class BackupCommand extends Command {
 
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy-HH:mm:ss").withZone(ZoneId.systemDefault());
+
     /**
      * Instantiate this class with the name of a command and with none or specified aliases
      * @since 0.0.1
      */
     public BackupCommand() {
-        super("backup", "backup <server>", "Backs up a whole server. (Doesnt save world)");
+        super("backup", "backup <server> (list) | backup status", "Queues a throttled backup of a whole server, lists its snapshots or shows the backup progress. (Doesnt save world)");
     }
 
     /**
@@ -29,19 +38,50 @@ public class BackupCommand extends Command {
      */
     @Override
     public void execute(String[] args) {
-        if (args.length != 1) {
+        if (args.length == 0 || args.length > 2 || (args.length == 2 && !args[1].equalsIgnoreCase("list"))) {
             sendCommandUsage();
             return;
         }
+        if (args.length == 1 && args[0].equalsIgnoreCase("status")) {
+            sendStatus();
+            return;
+        }
+        if (args.length == 2) {
+            List<Long> snapshots = BackupStore.getInstance().getSnapshots(args[0]);
+            log.info("%s snapshot(s) of %s: %s", snapshots.size(), args[0], snapshots.stream()
+                    .map(createdAt -> DATE_FORMAT.format(Instant.ofEpochMilli(createdAt)))
+                    .collect(Collectors.joining(", ")));
+            return;
+        }
         Server server = ServerHandler.getInstance().getServerByIdentifier(args[0]);
         if(server == null) {
             sendIllegalServerId(args[0]);
             return;
         }
-        try {
-            server.moveToBackup(true);
-        } catch (IOException e) {
-            log.error("Error while try to backup server: " + e.getMessage());
+        if (BackupScheduler.getInstance().queueBackup(server, true))
+            log.info("Backup of %s was queued, see 'backup status' for its progress", server.getServerId());
+        else
+            log.info("Backup of %s is already queued", server.getServerId());
+    }
+
+    private void sendStatus() {
+        BackupScheduler scheduler = BackupScheduler.getInstance();
+        log.info("Scheduled backups are %s", scheduler.isEnabled() ? "enabled" : "disabled");
+        BackupProgress current = scheduler.getCurrent();
+        if (current != null)
+            log.info("Backing up %s: %s%% (%s/%s MB changed, %s files) since %s s", current.getServerId(), current.getPercent(),
+                    current.getReadBytes() / 1048576, current.getTotalBytes() / 1048576, current.getFiles(),
+                    (System.currentTimeMillis() - current.getStartedAt()) / 1000);
+        BackupProgress last = scheduler.getLast();
+        if (last != null)
+            log.info("Last backup: %s at %s", last.getServerId(), DATE_FORMAT.format(Instant.ofEpochMilli(last.getStartedAt())));
+        if (!scheduler.getQueued().isEmpty())
+            log.info("Queued: " + String.join(", ", scheduler.getQueued()));
+        scheduler.getSkipped().forEach((serverId, reason) -> log.info("Skipped last backup of %s: %s", serverId, reason));
+        for (Server server : ServerHandler.getInstance().getServers()) {
+            long next = scheduler.getNextBackup(server.getServerId());
+            if (next > 0)
+                log.info("Next backup of %s at %s", server.getServerId(), DATE_FORMAT.format(Instant.ofEpochMilli(next)));
         }
     }
 }
@@ -0,0 +1,116 @@
+package net.fununity.cloud.server.command;
+
+import net.fununity.cloud.common.utils.CacheType;
+import net.fununity.cloud.server.cache.CacheBatches;
+import net.fununity.cloud.server.cache.CacheMetrics;
+import net.fununity.cloud.server.cache.CacheStore;
+import net.fununity.cloud.server.cache.CacheSubscriptions;
+import net.fununity.cloud.server.cache.TypedCache;
+import net.fununity.cloud.server.command.handler.Command;
+import net.fununity.cloud.server.misc.CacheHandler;
+
+import java.util.List;
+import java.util.Map;
+
+public class CacheCommand extends Command {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    /**
+     * Instantiate this class with the name of a command and with none or specified aliases
+     * @since 1.0
+     */
+    public CacheCommand() {
+        super("cache", "cache (type) | cache top <type> (limit) | cache reset",
+                "Shows the entries, hit rates and memory of the caches or the largest entries of a cache", "caches");
+    }
+
+    /**
+     * Will be called, when the user typed in the command name or aliase.
+     * @param args String[] - The arguments behind the command
+     * @since 1.0
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length == 0) {
+            log.info("Caches with %s player sessions, %s subscribed clients and %s running batches:",
+                    CacheHandler.getInstance().getSessions().size(), CacheSubscriptions.getInstance().getSubscriberCount(),
+                    CacheBatches.getInstance().getRunningCount());
+            for (CacheType type : CacheType.values())
+                printMetrics(type);
+            return;
+        }
+        switch (args[0].toLowerCase()) {
+            case "top" -> {
+                if (args.length < 2 || args.length > 3) {
+                    sendCommandUsage();
+                    return;
+                }
+                CacheType type = parseType(args[1]);
+                if (type == null)
+                    return;
+                int limit = DEFAULT_LIMIT;
+                if (args.length == 3) {
+                    try {
+                        limit = Math.min(MAX_LIMIT, Math.max(1, Integer.parseInt(args[2])));
+                    } catch (NumberFormatException exception) {
+                        sendCommandUsage();
+                        return;
+                    }
+                }
+                List<? extends Map.Entry<?, Long>> largest = CacheHandler.getInstance().getCache(type).getLargestEntries(limit);
+                log.info("Largest %s entries of %s:", largest.size(), type);
+                for (Map.Entry<?, Long> entry : largest)
+                    log.info("%s: %s", entry.getKey(), formatBytes(entry.getValue()));
+            }
+            case "reset" -> {
+                if (args.length != 1) {
+                    sendCommandUsage();
+                    return;
+                }
+                for (CacheType type : CacheType.values())
+                    CacheHandler.getInstance().getCache(type).getMetrics().reset();
+                log.info("Reset the metrics of every cache");
+            }
+            default -> {
+                if (args.length != 1) {
+                    sendCommandUsage();
+                    return;
+                }
+                CacheType type = parseType(args[0]);
+                if (type != null)
+                    printMetrics(type);
+            }
+        }
+    }
+
+    private void printMetrics(CacheType type) {
+        TypedCache<?, ?> cache = CacheHandler.getInstance().getCache(type);
+        CacheStore<?, ?> store = cache.getStore();
+        CacheMetrics metrics = cache.getMetrics();
+        log.info("%s: %s entries, %s, %s gets (%s hits, %s misses, %.1f%% hit rate), %s puts, %s removes, %s evictions, %s expirations",
+                type, store.size(), formatBytes(store.getBytes()), metrics.getGets(), metrics.getHits(), metrics.getMisses(),
+                metrics.getHitRate() * 100, metrics.getPuts(), metrics.getRemoves(), store.getEvictions(), store.getExpirations());
+    }
+
+    /**
+     * Gets a cache type by its name, the name can be shortened to its last part, e.g. texture.
+     */
+    private CacheType parseType(String name) {
+        for (CacheType type : CacheType.values()) {
+            if (type.name().equalsIgnoreCase(name) || type.name().endsWith("_" + name.toUpperCase()))
+                return type;
+        }
+        log.warn("Cache type %s does not exist", name);
+        return null;
+    }
+
+    private String formatBytes(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format("%.1f KB", bytes / 1024D);
+        return String.format("%.1f MB", bytes / 1024D / 1024D);
+    }
+}
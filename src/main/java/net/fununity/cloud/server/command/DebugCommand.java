@@ -2,6 +2,7 @@ package net.fununity.cloud.server.command;
 
 import net.fununity.cloud.common.utils.CloudLogger;
 import net.fununity.cloud.server.command.handler.Command;
+import net.fununity.cloud.server.logs.LogArchiver;
 import org.apache.log4j.Level;
 
 import java.io.IOException;
@@ -39,9 +40,10 @@ public class DebugCommand extends Command {
         switch (args[0].toLowerCase()) {
             case "save" -> {
                 try {
-                    CloudLogger.saveLogs(DEBUG_OUTPUT
-                            .resolve("CloudServer/" + OffsetDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy-HH:mm:ss"))
-                                     + ".txt").toAbsolutePath());
+                    Path file = DEBUG_OUTPUT.resolve("CloudServer/" + OffsetDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy-HH:mm:ss"))
+                                                     + ".txt").toAbsolutePath();
+                    CloudLogger.saveLogs(file);
+                    LogArchiver.getInstance().compress(file);
                     log.info("Debug file was saved.");
                 } catch (IOException e) {
                     log.error("Could not save logfile of cloudserver because: " + e.getMessage());
@@ -36,5 +36,8 @@ public class InfoCommand extends Command {
                 .append(server.getPlayerCount()).append("/").append(server.getMaxPlayers()).append(" ")
                 .append(server.getServerMaxRam()).append(" ")
                 .toString());
+        if (server.getLaunchCommand() != null) {
+            log.info("Startup time: %s ms, launched with: %s", server.getStartupTime(), String.join(" ", server.getLaunchCommand()));
+        }
     }
 }
@@ -4,9 +4,12 @@ import net.fununity.cloud.common.server.ServerType;
 import net.fununity.cloud.server.command.handler.Command;
 import net.fununity.cloud.server.server.Server;
 import net.fununity.cloud.server.server.ServerHandler;
+import net.fununity.cloud.server.server.StartFailureTracker;
+import net.fununity.cloud.server.server.StartQueue;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ListCommand extends Command {
@@ -42,10 +45,28 @@ public class ListCommand extends Command {
         log.info("%s server(s) active:", servers.size());
         log.info(servers.stream().map(this::getServerDetails).collect(Collectors.joining(", ")));
 
-        if (!ServerHandler.getInstance().getStartQueue().isEmpty()) {
-            log.info(ServerHandler.getInstance().getStartQueue().size() +
+        StartQueue startQueue = ServerHandler.getInstance().getPriorityStartQueue();
+        List<Server> queued = startQueue.getServers();
+        if (!queued.isEmpty()) {
+            log.info(queued.size() +
                      " in start queue: " +
-                     ServerHandler.getInstance().getStartQueue().stream().map(Server::getServerId).collect(Collectors.joining(", ")));
+                     queued.stream().map(server -> server.getServerId() + "(" + startQueue.getPriority(server) + ")").collect(Collectors.joining(", ")));
+        }
+        log.info("Start queue wait times: " + startQueue.getWaitTimes().entrySet().stream()
+                .filter(entry -> entry.getValue().getCount() > 0)
+                .map(entry -> entry.getKey() + "[avg:" + entry.getValue().getAverage() / 1000 + "s,max:"
+                              + entry.getValue().getMax() / 1000 + "s," + entry.getValue().getCount() + "x]")
+                .collect(Collectors.joining(", ")));
+
+        Map<ServerType, StartFailureTracker.FailureState> failures = ServerHandler.getInstance().getStartFailureTracker().getFailures();
+        if (!failures.isEmpty()) {
+            log.info("Failed starts: " + failures.entrySet().stream()
+                    .map(entry -> entry.getKey() + "[" + entry.getValue().getConsecutiveFailures() + "x,backoff:"
+                                  + entry.getValue().getRemainingBackoff() / 1000 + "s,last:" + entry.getValue().getLastReason() + "]")
+                    .collect(Collectors.joining(", ")));
+        }
+        if (!ServerHandler.getInstance().getExpiredServerTypes().isEmpty()) {
+            log.info("Expired: " + ServerHandler.getInstance().getExpiredServerTypes().stream().map(ServerType::name).collect(Collectors.joining(", ")));
         }
     }
 
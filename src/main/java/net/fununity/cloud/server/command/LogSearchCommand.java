@@ -0,0 +1,70 @@
+package net.fununity.cloud.server.command;
+
+import net.fununity.cloud.server.command.handler.Command;
+import net.fununity.cloud.server.logs.LogIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LogSearchCommand extends Command {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    /**
+     * Instantiate this class with the name of a command and with none or specified aliases
+     * @since 1.0
+     */
+    public LogSearchCommand() {
+        super("logsearch", "logsearch <uuid|exception|serverId> (limit)", "Searches the archived logs for a player uuid, an exception class or a server id");
+    }
+
+    /**
+     * Will be called, when the user typed in the command name or aliase.
+     * @param args String[] - The arguments behind the command
+     * @since 1.0
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            sendCommandUsage();
+            return;
+        }
+        int limit = DEFAULT_LIMIT;
+        if (args.length == 2) {
+            try {
+                limit = Math.max(1, Integer.parseInt(args[1]));
+            } catch (NumberFormatException exception) {
+                sendCommandUsage();
+                return;
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Path, List<Long>> result = LogIndex.getInstance().search(args[0]);
+        long lookup = System.currentTimeMillis() - start;
+        int hits = result.values().stream().mapToInt(List::size).sum();
+        log.info("Found %s lines in %s archives in %s ms", hits, result.size(), lookup);
+
+        AtomicInteger printed = new AtomicInteger();
+        for (Map.Entry<Path, List<Long>> entry : result.entrySet()) {
+            int remaining = limit - printed.get();
+            if (remaining <= 0)
+                break;
+            List<Long> offsets = entry.getValue().subList(0, Math.min(remaining, entry.getValue().size()));
+            String prefix = entry.getKey().getParent().getFileName() + "/" + entry.getKey().getFileName() + ": ";
+            try {
+                LogIndex.getInstance().readLines(entry.getKey(), offsets, line -> {
+                    printed.incrementAndGet();
+                    log.info("%s%s", prefix, line);
+                });
+            } catch (IOException exception) {
+                log.warn("Could not read %s: %s", entry.getKey(), exception.getMessage());
+            }
+        }
+        if (hits > printed.get())
+            log.info("%s more lines not shown", hits - printed.get());
+    }
+}
@@ -0,0 +1,108 @@
+package net.fununity.cloud.server.command;
+
+import net.fununity.cloud.server.command.handler.Command;
+import net.fununity.cloud.server.logs.LogTail;
+import net.fununity.cloud.server.server.Server;
+import net.fununity.cloud.server.server.ServerHandler;
+
+import java.io.IOException;
+import java.util.List;
+
+public class LogsCommand extends Command {
+
+    private static final int DEFAULT_LINES = 20;
+    private static final int MAX_LINES = 1000;
+
+    /**
+     * Instantiate this class with the name of a command and with none or specified aliases
+     * @since 1.0
+     */
+    public LogsCommand() {
+        super("logs", "logs <server> tail (lines) | logs <server> range <from> (lines) | logs <server> follow | logs unfollow (server)",
+                "Reads the latest log of running servers or follows it live");
+    }
+
+    /**
+     * Will be called, when the user typed in the command name or aliase.
+     * @param args String[] - The arguments behind the command
+     * @since 1.0
+     */
+    @Override
+    public void execute(String[] args) {
+        if (args.length == 0 || args.length > 4) {
+            sendCommandUsage();
+            return;
+        }
+        if (args[0].equalsIgnoreCase("unfollow")) {
+            unfollow(args);
+            return;
+        }
+        if (args.length < 2) {
+            sendCommandUsage();
+            return;
+        }
+        Server server = ServerHandler.getInstance().getServerByIdentifier(args[0]);
+        if (server == null) {
+            sendIllegalServerId(args[0]);
+            return;
+        }
+
+        try {
+            switch (args[1].toLowerCase()) {
+                case "tail" -> {
+                    if (args.length > 3) {
+                        sendCommandUsage();
+                        return;
+                    }
+                    print(server, LogTail.getInstance().tail(server.getLogFile(), parseLines(args, 2)));
+                }
+                case "range" -> {
+                    if (args.length < 3) {
+                        sendCommandUsage();
+                        return;
+                    }
+                    long from = Math.max(LogTail.getInstance().getFirstLine(server.getLogFile()), Long.parseLong(args[2]));
+                    long total = LogTail.getInstance().getLineCount(server.getLogFile());
+                    List<String> lines = LogTail.getInstance().range(server.getLogFile(), from, parseLines(args, 3));
+                    log.info("Showing %s of %s lines of %s, starting at line %s", lines.size(), total, server.getServerId(), from);
+                    print(server, lines);
+                }
+                case "follow" -> {
+                    String serverId = server.getServerId();
+                    if (LogTail.getInstance().follow(serverId, server.getLogFile(), line -> log.info("[%s] %s", serverId, line)))
+                        log.info("Following the log of %s, stop with 'logs unfollow %s'", serverId, serverId);
+                    else
+                        log.warn("Following logs is not supported on this system");
+                }
+                default -> sendCommandUsage();
+            }
+        } catch (NumberFormatException exception) {
+            sendCommandUsage();
+        } catch (IOException exception) {
+            log.warn("Could not read the log of %s: %s", server.getServerId(), exception.getMessage());
+        }
+    }
+
+    private void unfollow(String[] args) {
+        if (args.length > 2) {
+            sendCommandUsage();
+            return;
+        }
+        List<String> names = args.length == 2 ? List.of(args[1]) : LogTail.getInstance().getFollowers();
+        for (String name : names) {
+            if (LogTail.getInstance().unfollow(name))
+                log.info("Stopped following the log of %s", name);
+            else
+                log.info("The log of %s is not followed", name);
+        }
+    }
+
+    private int parseLines(String[] args, int index) {
+        return args.length > index ? Math.min(MAX_LINES, Math.max(1, Integer.parseInt(args[index]))) : DEFAULT_LINES;
+    }
+
+    private void print(Server server, List<String> lines) {
+        for (String line : lines)
+            log.info("[%s] %s", server.getServerId(), line);
+    }
+}
@@ -2,6 +2,9 @@ package net.fununity.cloud.server.command;
 
 import net.fununity.cloud.common.server.ServerType;
 import net.fununity.cloud.server.command.handler.Command;
+import net.fununity.cloud.server.misc.LaunchProfileHandler;
+import net.fununity.cloud.server.server.BootTimeDistribution;
+import net.fununity.cloud.server.server.ServerHandler;
 
 import java.util.Arrays;
 
@@ -12,7 +15,7 @@ public class ServerTypeCommand extends Command {
      * @since 0.0.1
      */
     public ServerTypeCommand() {
-        super("servertype", "servertype", "Displays all Servertypes", "types", "servertypes");
+        super("servertype", "servertype (<servertype>)", "Displays all Servertypes or the launch profile and boot times of one", "types", "servertypes");
     }
 
     /**
@@ -22,6 +25,22 @@ public class ServerTypeCommand extends Command {
      */
     @Override
     public void execute(String[] args) {
-        log.info("All ServerTypes: " + Arrays.toString(ServerType.values()));
+        if (args.length == 0) {
+            log.info("All ServerTypes: " + Arrays.toString(ServerType.values()));
+            return;
+        }
+
+        ServerType serverType;
+        try {
+            serverType = ServerType.valueOf(args[0]);
+        } catch (IllegalArgumentException exception) {
+            sendIllegalServerType();
+            return;
+        }
+
+        BootTimeDistribution bootTimes = ServerHandler.getInstance().getStartWatchdog().getBootTimes(serverType);
+        log.info(LaunchProfileHandler.getInstance().getProfile(serverType).toString());
+        log.info("Boot times of %s (%s samples): p50 %s ms, p95 %s ms, deadline %s s", serverType, bootTimes.size(),
+                bootTimes.getPercentile(0.5), bootTimes.getPercentile(0.95), ServerHandler.getInstance().getStartWatchdog().getDeadline(serverType) / 1000);
     }
 }
@@ -4,6 +4,7 @@ import net.fununity.cloud.common.server.ServerType;
 import net.fununity.cloud.server.command.handler.Command;
 import net.fununity.cloud.server.misc.ConfigHandler;
 import net.fununity.cloud.server.server.ServerHandler;
+import net.fununity.cloud.server.server.StartPriority;
 
 public class StartCommand extends Command {
 
@@ -52,7 +53,8 @@ public class StartCommand extends Command {
         }
 
         log.info("Starting %s server with type %s", amount, args[0]);
+        StartPriority priority = amount > 1 ? StartPriority.BULK : StartPriority.DEFAULT;
         for (int i = 0; i < amount; i++)
-            ServerHandler.getInstance().createServerByServerType(serverType);
+            ServerHandler.getInstance().createServerByServerType(serverType, priority);
     }
 }
@@ -20,7 +20,7 @@ public class CommandHandler {
      */
     public CommandHandler(CloudLogger logger) {
         this.commandList = Arrays.asList(new HelpCommand(), new ServerTypeCommand(), new ListCommand(), new StopCommand(), new BackupCommand(), new DebugCommand(),
-                new RestartCommand(), new InfoCommand(), new StartCommand(), new ExpireCommand(), new ValidateCommand(), new RemoveServerCommand(), new ExitCommand());
+                new RestartCommand(), new InfoCommand(), new StartCommand(), new ExpireCommand(), new ValidateCommand(), new RemoveServerCommand(), new LogSearchCommand(), new LogsCommand(), new CacheCommand(), new ExitCommand());
         this.log = logger;
 
     }
@@ -0,0 +1,52 @@
+package net.fununity.cloud.server.files;
+
+/**
+ * The result of one copy operation of the {@link ParallelCopier}.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public final class CopyStats {
+
+    private final long files;
+    private final long linkedFiles;
+    private final long bytes;
+    private final long millis;
+
+    /**
+     * Creates the stats of a finished copy operation.
+     *
+     * @param files       long - the number of copied files.
+     * @param linkedFiles long - the number of hardlinked files.
+     * @param bytes       long - the number of copied bytes.
+     * @param millis      long - the duration in milliseconds.
+     * @since 1.0
+     */
+    CopyStats(long files, long linkedFiles, long bytes, long millis) {
+        this.files = files;
+        this.linkedFiles = linkedFiles;
+        this.bytes = bytes;
+        this.millis = millis;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getLinkedFiles() {
+        return linkedFiles;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s files (%.1f MB), %s linked in %s ms", files, bytes / 1048576.0, linkedFiles, millis);
+    }
+}
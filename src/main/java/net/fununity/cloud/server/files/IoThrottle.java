@@ -0,0 +1,59 @@
+package net.fununity.cloud.server.files;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting background disk work, so it does not stall the disk of running servers.
+ * Callers acquire permits before each operation, e.g. one per deleted file or one per written byte.
+ * Acquiring more permits than available puts the bucket into debt and blocks the caller till it is paid off.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public final class IoThrottle {
+
+    private final long permitsPerSecond;
+    private final long burst;
+    private double available;
+    private long lastRefill;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param permitsPerSecond long - the permits refilled per second.
+     * @param burst            long - the maximum permits which can be saved up.
+     * @since 1.0
+     */
+    public IoThrottle(long permitsPerSecond, long burst) {
+        if (permitsPerSecond <= 0 || burst <= 0)
+            throw new IllegalArgumentException("Rate and burst of a throttle must be positive");
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.available = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes the permits and blocks till the bucket is not in debt anymore.
+     *
+     * @param permits long - the permits to take.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     * @since 1.0
+     */
+    public void acquire(long permits) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            available = Math.min(burst, available + (now - lastRefill) * permitsPerSecond / 1e9);
+            lastRefill = now;
+            available -= permits;
+            waitNanos = available >= 0 ? 0 : (long) (-available * 1e9 / permitsPerSecond);
+        }
+        if (waitNanos > 0)
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+
+    public long getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+}
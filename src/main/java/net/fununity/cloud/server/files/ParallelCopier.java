@@ -0,0 +1,221 @@
+package net.fununity.cloud.server.files;
+
+import net.fununity.cloud.common.utils.CloudLogger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Copies directory trees with a bounded pool of threads.
+ * The tree is walked once, directories are created while walking and the files are copied in parallel.</p>
+ * Large files are transferred channel to channel, small files by {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}.
+ * The modification times of the files are preserved.
+ *
+ * @author Niko
+ * @see CopyStats
+ * @since 1.0
+ */
+public class ParallelCopier {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(ParallelCopier.class.getSimpleName());
+    private static final long TRANSFER_THRESHOLD = 1024 * 1024;
+    private static final int MAX_THREADS = 8;
+    private static ParallelCopier instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return ParallelCopier - the copier.
+     * @since 1.0
+     */
+    public static ParallelCopier getInstance() {
+        if (instance == null)
+            instance = new ParallelCopier();
+        return instance;
+    }
+
+    private final ExecutorService executor;
+
+    private ParallelCopier() {
+        instance = this;
+        AtomicInteger threadId = new AtomicInteger();
+        int threads = Math.max(2, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() * 2));
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ParallelCopier-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Copies the source directory into the target directory.
+     * Existing files in the target directory will be replaced.
+     *
+     * @param source Path - the directory to copy.
+     * @param target Path - the directory to copy to.
+     * @return {@link CopyStats} - the stats of the copy.
+     * @throws IOException if a file could not be copied.
+     * @since 1.0
+     */
+    public CopyStats copy(Path source, Path target) throws IOException {
+        return copy(source, target, file -> false);
+    }
+
+    /**
+     * Copies the source directory into the target directory.
+     * Files matching the link filter are hardlinked instead, if possible.
+     * Existing files in the target directory will be replaced.
+     *
+     * @param source     Path - the directory to copy.
+     * @param target     Path - the directory to copy to.
+     * @param linkFilter Predicate<Path> - the source files to hardlink.
+     * @return {@link CopyStats} - the stats of the copy.
+     * @throws IOException if a file could not be copied.
+     * @since 1.0
+     */
+    public CopyStats copy(Path source, Path target, Predicate<Path> linkFilter) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong files = new AtomicLong();
+        AtomicLong linkedFiles = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        List<Future<?>> tasks = new ArrayList<>();
+
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    tasks.add(submit(file, target.resolve(source.relativize(file).toString()), attrs, linkFilter, files, linkedFiles, bytes));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            awaitAll(tasks);
+        }
+
+        CopyStats stats = new CopyStats(files.get(), linkedFiles.get(), bytes.get(), System.currentTimeMillis() - start);
+        LOG.debug("Copied %s to %s: %s", source, target, stats);
+        return stats;
+    }
+
+    /**
+     * Copies the given files of the source directory into the target directory.
+     * Missing parent directories are created, existing files in the target directory will be replaced.
+     *
+     * @param source        Path - the directory to copy from.
+     * @param target        Path - the directory to copy to.
+     * @param relativePaths Collection<String> - the files to copy, relative to the source directory.
+     * @param linkFilter    Predicate<Path> - the source files to hardlink.
+     * @return {@link CopyStats} - the stats of the copy.
+     * @throws IOException if a file could not be copied.
+     * @since 1.0
+     */
+    public CopyStats copyFiles(Path source, Path target, Collection<String> relativePaths, Predicate<Path> linkFilter) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong files = new AtomicLong();
+        AtomicLong linkedFiles = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        List<Future<?>> tasks = new ArrayList<>();
+
+        try {
+            for (String relativePath : relativePaths) {
+                Path file = source.resolve(relativePath);
+                Path destination = target.resolve(relativePath);
+                Files.createDirectories(destination.getParent());
+                tasks.add(submit(file, destination, Files.readAttributes(file, BasicFileAttributes.class), linkFilter, files, linkedFiles, bytes));
+            }
+        } finally {
+            awaitAll(tasks);
+        }
+        return new CopyStats(files.get(), linkedFiles.get(), bytes.get(), System.currentTimeMillis() - start);
+    }
+
+    private Future<?> submit(Path file, Path destination, BasicFileAttributes attrs, Predicate<Path> linkFilter,
+                             AtomicLong files, AtomicLong linkedFiles, AtomicLong bytes) {
+        return executor.submit(() -> {
+            if (linkFilter.test(file) && link(file, destination)) {
+                linkedFiles.incrementAndGet();
+            } else {
+                copyFile(file, destination, attrs);
+                files.incrementAndGet();
+                bytes.addAndGet(attrs.size());
+            }
+            return null;
+        });
+    }
+
+    private boolean link(Path file, Path destination) {
+        try {
+            Files.deleteIfExists(destination);
+            Files.createLink(destination, file);
+            return true;
+        } catch (IOException | UnsupportedOperationException exception) {
+            LOG.debug("Could not hardlink %s, copying it: %s", file, exception.getMessage());
+            return false;
+        }
+    }
+
+    private void copyFile(Path file, Path destination, BasicFileAttributes attrs) throws IOException {
+        if (attrs.size() < TRANSFER_THRESHOLD) {
+            Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            return;
+        }
+
+        // the destination may be a hardlink shared with other directories, so it must not be written into
+        Files.deleteIfExists(destination);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destination, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size)
+                position += in.transferTo(position, size - position, out);
+        }
+        Files.setLastModifiedTime(destination, attrs.lastModifiedTime());
+    }
+
+    /**
+     * Waits for every submitted copy, even if one failed, so no copy is running after returning.
+     * The first failure is thrown.
+     */
+    private void awaitAll(List<Future<?>> tasks) throws IOException {
+        IOException failure = null;
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                tasks.forEach(t -> t.cancel(false));
+                if (failure == null)
+                    failure = new IOException("Copy was interrupted", exception);
+            } catch (ExecutionException exception) {
+                if (failure == null)
+                    failure = exception.getCause() instanceof IOException ioException ? ioException : new IOException(exception.getCause());
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,194 @@
+package net.fununity.cloud.server.files;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * <p>
+ * Tears server directories down without blocking the stop of a server.
+ * A directory is atomically renamed into the trash, so the server id and port can be reused immediately,
+ * and its content is deleted by a low priority background worker, throttled by an {@link IoThrottle}.</p>
+ * A trashed directory which was not deleted yet can be reclaimed by a new server of the same type and synced incrementally.
+ * Leftovers of a previous run are deleted on startup.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class ServerTrash {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(ServerTrash.class.getSimpleName());
+    private static final Path TRASH_PATH = Paths.get("./Servers/Trash/");
+    private static final long DELETES_PER_SECOND = 500;
+    private static final long BYTES_PER_PERMIT = 4 * 1024 * 1024;
+    private static ServerTrash instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return ServerTrash - the trash.
+     * @since 1.0
+     */
+    public static ServerTrash getInstance() {
+        if (instance == null)
+            instance = new ServerTrash();
+        return instance;
+    }
+
+    private final LinkedBlockingDeque<TrashedDirectory> trashed;
+    private final IoThrottle throttle;
+
+    private ServerTrash() {
+        instance = this;
+        this.trashed = new LinkedBlockingDeque<>();
+        this.throttle = new IoThrottle(DELETES_PER_SECOND, DELETES_PER_SECOND);
+        loadLeftovers();
+
+        Thread worker = new Thread(this::deleteTrashed, "ServerTrash");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Moves the directory into the trash to be deleted in the background.
+     * Deletes the directory directly, if it cannot be moved atomically, e.g. across filesystems.
+     *
+     * @param directory  Path - the server or backup directory.
+     * @param serverType {@link ServerType} - the type the directory belongs to.
+     * @since 1.0
+     */
+    public void trash(Path directory, ServerType serverType) {
+        if (!Files.exists(directory))
+            return;
+        Path destination = TRASH_PATH.resolve(serverType.name()).resolve(directory.getFileName() + "-" + System.currentTimeMillis());
+        try {
+            Files.createDirectories(destination.getParent());
+            Files.move(directory, destination, StandardCopyOption.ATOMIC_MOVE);
+            trashed.add(new TrashedDirectory(destination, serverType));
+            LOG.debug("Moved %s to trash", directory);
+        } catch (IOException exception) {
+            LOG.warn("Could not move %s to trash, deleting it directly: %s", directory, exception.getMessage());
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    /**
+     * Moves the most recently trashed directory of the server type to the target, if one was not deleted yet.
+     *
+     * @param serverType {@link ServerType} - the type of the new server.
+     * @param target     Path - the server directory, which must not exist.
+     * @return boolean - a directory was reclaimed.
+     * @since 1.0
+     */
+    public boolean reclaim(ServerType serverType, Path target) {
+        Iterator<TrashedDirectory> iterator = trashed.descendingIterator();
+        while (iterator.hasNext()) {
+            TrashedDirectory directory = iterator.next();
+            if (directory.serverType != serverType || !trashed.remove(directory))
+                continue;
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(directory.path, target, StandardCopyOption.ATOMIC_MOVE);
+                LOG.debug("Reclaimed %s from trash for %s", directory.path, target);
+                return true;
+            } catch (IOException exception) {
+                LOG.warn("Could not reclaim %s from trash: %s", directory.path, exception.getMessage());
+                trashed.add(directory);
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of trashed directories waiting to be deleted.
+     *
+     * @return int - the number of directories.
+     * @since 1.0
+     */
+    public int getPendingDeletions() {
+        return trashed.size();
+    }
+
+    private void loadLeftovers() {
+        if (!Files.isDirectory(TRASH_PATH))
+            return;
+        try (DirectoryStream<Path> types = Files.newDirectoryStream(TRASH_PATH, Files::isDirectory)) {
+            for (Path type : types) {
+                ServerType serverType;
+                try {
+                    serverType = ServerType.valueOf(type.getFileName().toString());
+                } catch (IllegalArgumentException exception) {
+                    LOG.warn("Unknown server type in trash: %s", type);
+                    continue;
+                }
+                try (DirectoryStream<Path> directories = Files.newDirectoryStream(type)) {
+                    directories.forEach(directory -> trashed.add(new TrashedDirectory(directory, serverType)));
+                }
+            }
+        } catch (IOException exception) {
+            LOG.warn("Could not load trash of a previous run: %s", exception.getMessage());
+        }
+        if (!trashed.isEmpty())
+            LOG.info("Deleting %s trashed directories of a previous run", trashed.size());
+    }
+
+    private void deleteTrashed() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TrashedDirectory directory = trashed.take();
+                long start = System.currentTimeMillis();
+                delete(directory.path);
+                LOG.debug("Deleted %s from trash in %s ms", directory.path, System.currentTimeMillis() - start);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (IOException exception) {
+                LOG.error("Could not delete from trash: %s", exception.getMessage());
+            }
+        }
+    }
+
+    private void delete(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                acquire(1 + attrs.size() / BYTES_PER_PERMIT);
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                acquire(1);
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void acquire(long permits) throws InterruptedIOException {
+        try {
+            throttle.acquire(permits);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Deletion was interrupted");
+        }
+    }
+
+    private record TrashedDirectory(Path path, ServerType serverType) {
+    }
+}
@@ -0,0 +1,100 @@
+package net.fununity.cloud.server.files;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The size and modification time of every file of a template or backup directory.
+ * Provisioned files keep the modification time of their source,
+ * so a file of a server directory differing from the manifest was changed by the server or in the template.
+ *
+ * @author Niko
+ * @see TemplateProvisioner
+ * @since 1.0
+ */
+public final class TemplateManifest {
+
+    private final Path root;
+    private final Map<String, Entry> files;
+    private final Set<String> directories;
+    private final long scannedAt;
+
+    private TemplateManifest(Path root, Map<String, Entry> files, Set<String> directories) {
+        this.root = root;
+        this.files = files;
+        this.directories = directories;
+        this.scannedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Scans the attributes of every file in the directory.
+     *
+     * @param root Path - the template or backup directory.
+     * @return TemplateManifest - the manifest.
+     * @throws IOException if the directory could not be walked.
+     * @since 1.0
+     */
+    public static TemplateManifest scan(Path root) throws IOException {
+        Map<String, Entry> files = new HashMap<>();
+        Set<String> directories = new HashSet<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                directories.add(root.relativize(dir).toString());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.put(root.relativize(file).toString(), new Entry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return new TemplateManifest(root, files, directories);
+    }
+
+    /**
+     * Checks if a file of a server directory still matches the manifest.
+     *
+     * @param relativePath String - the path relative to the directory.
+     * @param attrs        BasicFileAttributes - the attributes of the server file.
+     * @return boolean - size and modification time match.
+     * @since 1.0
+     */
+    public boolean matches(String relativePath, BasicFileAttributes attrs) {
+        Entry entry = files.get(relativePath);
+        return entry != null && entry.size == attrs.size() && entry.lastModified == attrs.lastModifiedTime().toMillis();
+    }
+
+    public boolean containsFile(String relativePath) {
+        return files.containsKey(relativePath);
+    }
+
+    public boolean containsDirectory(String relativePath) {
+        return directories.contains(relativePath);
+    }
+
+    public Set<String> getFiles() {
+        return Collections.unmodifiableSet(files.keySet());
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public long getScannedAt() {
+        return scannedAt;
+    }
+
+    private record Entry(long size, long lastModified) {
+    }
+}
@@ -0,0 +1,227 @@
+package net.fununity.cloud.server.files;
+
+import net.fununity.cloud.common.utils.CloudLogger;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Provisions server directories out of templates or backups without copying every byte.
+ * If the filesystem supports reflinks (btrfs, xfs, ...), the whole directory is cloned copy-on-write by a single cp call.
+ * Otherwise, read-only artifacts are hardlinked and only the files the server writes to are copied.</p>
+ * Hardlinked artifacts share their content with the source, so templates must replace jars instead of writing into them.
+ * <p>
+ * An already existing server directory is synced incrementally against the cached {@link TemplateManifest} of the source:
+ * only files which were changed by the server or in the source are rewritten, files the source does not have are deleted.</p>
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class TemplateProvisioner {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(TemplateProvisioner.class.getSimpleName());
+    private static final String READ_ONLY_SUFFIX = ".jar";
+    private static final long REFLINK_TIMEOUT = 5;
+    private static final long MANIFEST_TTL = 60000;
+    private static TemplateProvisioner instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return TemplateProvisioner - the provisioner.
+     * @since 1.0
+     */
+    public static TemplateProvisioner getInstance() {
+        if (instance == null)
+            instance = new TemplateProvisioner();
+        return instance;
+    }
+
+    private final Map<Path, TemplateManifest> manifests;
+    private Boolean reflinkSupported;
+
+    private TemplateProvisioner() {
+        instance = this;
+        this.manifests = new ConcurrentHashMap<>();
+        this.reflinkSupported = null;
+    }
+
+    /**
+     * Provisions the target directory with the content of the source directory.
+     * If the target directory already exists, it will be synced incrementally.
+     *
+     * @param source Path - the template or backup directory.
+     * @param target Path - the server directory to create.
+     * @return {@link Mode} - how the directory was provisioned.
+     * @throws IOException if the directory could not be provisioned.
+     * @since 1.0
+     */
+    public Mode provision(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source))
+            throw new IOException(source + " is not a directory");
+        if (Files.isDirectory(target)) {
+            sync(source, target);
+            return Mode.INCREMENTAL;
+        }
+        Files.createDirectories(target.getParent());
+
+        if (isReflinkSupported(target.getParent())) {
+            if (reflinkDirectory(source, target))
+                return Mode.REFLINK;
+            LOG.warn("Reflink clone of %s failed, falling back to hardlinks", source);
+            FileUtils.deleteDirectory(target.toFile());
+        }
+
+        linkDirectory(source, target);
+        return Mode.HARDLINK;
+    }
+
+    /**
+     * Checks once if the filesystem of the given directory supports reflinks.
+     */
+    private synchronized boolean isReflinkSupported(Path directory) {
+        if (reflinkSupported != null)
+            return reflinkSupported;
+        reflinkSupported = false;
+        if (!System.getProperty("os.name").toLowerCase().contains("linux"))
+            return false;
+
+        Path probe = null;
+        Path clone = directory.resolve(".reflink-probe.clone");
+        try {
+            probe = Files.createTempFile(directory, ".reflink-probe", null);
+            Files.writeString(probe, "probe");
+            reflinkSupported = runCopy("cp", "--reflink=always", probe.toString(), clone.toString());
+        } catch (IOException exception) {
+            LOG.warn("Could not probe reflink support: %s", exception.getMessage());
+        } finally {
+            try {
+                if (probe != null)
+                    Files.deleteIfExists(probe);
+                Files.deleteIfExists(clone);
+            } catch (IOException ignored) {
+            }
+        }
+        LOG.info("Reflinks are %s, server directories will be provisioned with %s",
+                reflinkSupported ? "supported" : "not supported", reflinkSupported ? "reflink clones" : "hardlinks");
+        return reflinkSupported;
+    }
+
+    private boolean reflinkDirectory(Path source, Path target) throws IOException {
+        return runCopy("cp", "-R", "--reflink=always", "--preserve=timestamps", source.toString(), target.toString());
+    }
+
+    private boolean runCopy(String... command) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            if (!process.waitFor(REFLINK_TIMEOUT, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (InterruptedException exception) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Recreates the directory tree, hardlinks read-only artifacts and copies everything else in parallel.
+     * Falls back to a copy, if a hardlink cannot be created, e.g. across filesystems.
+     */
+    private void linkDirectory(Path source, Path target) throws IOException {
+        CopyStats stats = ParallelCopier.getInstance().copy(source, target, this::isReadOnly);
+        LOG.debug("Provisioned %s out of %s: %s", target, source, stats);
+    }
+
+    /**
+     * Syncs an existing directory with the source.
+     * Files matching the manifest are kept, changed and missing files are rewritten and all other files are deleted.
+     * Directories the source does not have, e.g. player data or logs, are deleted without comparing their content.
+     */
+    private void sync(Path source, Path target) throws IOException {
+        long start = System.currentTimeMillis();
+        TemplateManifest manifest = getManifest(source);
+        Set<String> rewrite = new HashSet<>(manifest.getFiles());
+        AtomicInteger deleted = new AtomicInteger();
+
+        Files.walkFileTree(target, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                String relativePath = target.relativize(dir).toString();
+                if (manifest.containsDirectory(relativePath))
+                    return FileVisitResult.CONTINUE;
+                FileUtils.deleteDirectory(dir.toFile());
+                deleted.incrementAndGet();
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String relativePath = target.relativize(file).toString();
+                if (manifest.matches(relativePath, attrs)) {
+                    rewrite.remove(relativePath);
+                } else if (!manifest.containsFile(relativePath)) {
+                    Files.delete(file);
+                    deleted.incrementAndGet();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        CopyStats stats = ParallelCopier.getInstance().copyFiles(source, target, rewrite, this::isReadOnly);
+        LOG.debug("Synced %s with %s: %s kept, %s deleted, rewrote %s in %s ms", target, source,
+                manifest.getFiles().size() - rewrite.size(), deleted.get(), stats, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Gets the manifest of the source directory.
+     * It is cached per directory and rescanned, once it is older than the time to live.
+     */
+    private TemplateManifest getManifest(Path source) throws IOException {
+        Path key = source.toAbsolutePath().normalize();
+        TemplateManifest manifest = manifests.get(key);
+        if (manifest == null || System.currentTimeMillis() - manifest.getScannedAt() > MANIFEST_TTL) {
+            manifest = TemplateManifest.scan(source);
+            manifests.put(key, manifest);
+        }
+        return manifest;
+    }
+
+    private boolean isReadOnly(Path file) {
+        return file.getFileName().toString().endsWith(READ_ONLY_SUFFIX);
+    }
+
+    /**
+     * The ways a server directory can be provisioned.
+     *
+     * @since 1.0
+     */
+    public enum Mode {
+        /**
+         * The whole directory was cloned copy-on-write.
+         */
+        REFLINK,
+        /**
+         * Read-only artifacts were hardlinked, everything else was copied.
+         */
+        HARDLINK,
+        /**
+         * The existing directory was synced, only changed files were rewritten.
+         */
+        INCREMENTAL
+    }
+}
@@ -0,0 +1,220 @@
+package net.fununity.cloud.server.logs;
+
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.command.DebugCommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>
+ * Archives saved server logs and debug output compressed in the {@link DebugCommand#DEBUG_OUTPUT} directory.
+ * A log file is only renamed out of the server directory by the caller, so the stop of a server is not delayed,
+ * and indexed and compressed on a low priority background thread.</p>
+ * After every archived file the retention of its directory is enforced by number of files, size and age,
+ * and the whole debug output is limited to a maximum size, deleting the oldest archives first.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class LogArchiver {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(LogArchiver.class.getSimpleName());
+    public static final String ARCHIVE_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FILES_PER_DIRECTORY = 30;
+    private static final long MAX_BYTES_PER_DIRECTORY = 200L * 1024 * 1024;
+    private static final long MAX_AGE = 14L * 24 * 60 * 60 * 1000;
+    private static final long MAX_TOTAL_BYTES = 2L * 1024 * 1024 * 1024;
+    private static LogArchiver instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return LogArchiver - the archiver.
+     * @since 1.0
+     */
+    public static LogArchiver getInstance() {
+        if (instance == null)
+            instance = new LogArchiver();
+        return instance;
+    }
+
+    private final ExecutorService executor;
+
+    private LogArchiver() {
+        instance = this;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LogArchiver");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        compressLeftovers();
+    }
+
+    /**
+     * Moves the log file into the archive directory and compresses it in the background.
+     *
+     * @param logFile   Path - the log file, e.g. the latest.log of a stopped server.
+     * @param directory Path - the archive directory of the server.
+     * @param filename  String - the name of the archived file without the compression suffix.
+     * @return Path - the path of the compressed archive once it is written.
+     * @throws IOException if the log file could not be moved.
+     * @since 1.0
+     */
+    public Path archive(Path logFile, Path directory, String filename) throws IOException {
+        Files.createDirectories(directory);
+        Path staged = directory.resolve(filename);
+        Files.move(logFile, staged, StandardCopyOption.REPLACE_EXISTING);
+        return compress(staged);
+    }
+
+    /**
+     * Compresses a file inside the debug output in the background and deletes the uncompressed file afterwards.
+     *
+     * @param file Path - the file to compress.
+     * @return Path - the path of the compressed archive once it is written.
+     * @since 1.0
+     */
+    public Path compress(Path file) {
+        Path archive = file.resolveSibling(file.getFileName() + ARCHIVE_SUFFIX);
+        executor.execute(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                long size = Files.size(file);
+                FileTime lastModified = Files.getLastModifiedTime(file);
+                try {
+                    LogIndex.getInstance().index(archive, file);
+                } catch (IOException exception) {
+                    LOG.warn("Could not index %s: %s", file, exception.getMessage());
+                }
+                try (InputStream in = Files.newInputStream(file);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive), BUFFER_SIZE)) {
+                    in.transferTo(out);
+                }
+                Files.setLastModifiedTime(archive, lastModified);
+                Files.delete(file);
+                LOG.debug("Compressed %s from %s to %s KB in %s ms", archive, size / 1024, Files.size(archive) / 1024,
+                        System.currentTimeMillis() - start);
+                archived(archive);
+            } catch (IOException exception) {
+                LOG.error("Could not compress %s: %s", file, exception.getMessage());
+            }
+        });
+        return archive;
+    }
+
+    /**
+     * Called on the archiver thread after an archive was written.
+     */
+    private void archived(Path archive) {
+        applyRetention(archive.getParent());
+        applyTotalRetention();
+    }
+
+    private void applyRetention(Path directory) {
+        List<Path> archives = listArchives(directory);
+        long now = System.currentTimeMillis();
+        long bytes = 0;
+        int kept = 0;
+        for (Path archive : archives) {
+            try {
+                long size = Files.size(archive);
+                if (kept >= MAX_FILES_PER_DIRECTORY || bytes + size > MAX_BYTES_PER_DIRECTORY
+                    || now - Files.getLastModifiedTime(archive).toMillis() > MAX_AGE) {
+                    delete(archive);
+                    continue;
+                }
+                bytes += size;
+                kept++;
+            } catch (IOException exception) {
+                LOG.warn("Could not apply retention to %s: %s", archive, exception.getMessage());
+            }
+        }
+    }
+
+    private void applyTotalRetention() {
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(DebugCommand.DEBUG_OUTPUT, Files::isDirectory)) {
+            directories.forEach(directory -> archives.addAll(listArchives(directory)));
+        } catch (IOException exception) {
+            LOG.warn("Could not list debug output: %s", exception.getMessage());
+            return;
+        }
+        archives.sort(Comparator.comparingLong(this::getLastModified).reversed());
+
+        long bytes = 0;
+        for (Path archive : archives) {
+            try {
+                bytes += Files.size(archive);
+                if (bytes > MAX_TOTAL_BYTES)
+                    delete(archive);
+            } catch (IOException exception) {
+                LOG.warn("Could not apply retention to %s: %s", archive, exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Lists the compressed archives of the directory, newest first.
+     */
+    private List<Path> listArchives(Path directory) {
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ARCHIVE_SUFFIX)) {
+            stream.forEach(archives::add);
+        } catch (IOException exception) {
+            LOG.warn("Could not list archives of %s: %s", directory, exception.getMessage());
+        }
+        archives.sort(Comparator.comparingLong(this::getLastModified).reversed());
+        return archives;
+    }
+
+    private void delete(Path archive) throws IOException {
+        Files.deleteIfExists(archive);
+        LogIndex.getInstance().removed(archive);
+        LOG.debug("Deleted archived log %s", archive);
+    }
+
+    private long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException exception) {
+            return 0;
+        }
+    }
+
+    /**
+     * Queues every uncompressed file of the debug output, e.g. if the cloud stopped while compressing.
+     */
+    private void compressLeftovers() {
+        if (!Files.isDirectory(DebugCommand.DEBUG_OUTPUT))
+            return;
+        try (Stream<Path> files = Files.walk(DebugCommand.DEBUG_OUTPUT, 2)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(ARCHIVE_SUFFIX))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ARCHIVE_SUFFIX));
+                        } catch (IOException ignored) {
+                        }
+                        compress(file);
+                    });
+        } catch (IOException exception) {
+            LOG.warn("Could not compress leftover logs: %s", exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package net.fununity.cloud.server.logs;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.command.DebugCommand;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * Inverted index over the archived logs of the {@link LogArchiver}.
+ * It maps player uuids, exception class names and server ids to postings of the archive and the uncompressed offset of the line.
+ * Every archived file is indexed once while it is compressed and appended as own segment to the index file,
+ * so the index is built incrementally and survives restarts.</p>
+ * Postings of archives deleted by the retention are dropped, the index file is rewritten once most of its segments are dead.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class LogIndex {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(LogIndex.class.getSimpleName());
+    private static final Path INDEX_FILE = DebugCommand.DEBUG_OUTPUT.resolve("logs.index");
+    private static final Pattern UUID_PATTERN = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern EXCEPTION_PATTERN = Pattern.compile("\\b((?:[a-z_$][\\w$]*\\.)+)?([A-Z][\\w$]*(?:Exception|Error))\\b");
+    private static final int MAX_POSTINGS_PER_FILE = 1000;
+    private static final int MIN_DEAD_SEGMENTS = 10;
+    private static LogIndex instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return LogIndex - the index.
+     * @since 1.0
+     */
+    public static LogIndex getInstance() {
+        if (instance == null)
+            instance = new LogIndex();
+        return instance;
+    }
+
+    private final Pattern serverIdPattern;
+    private final List<Path> files;
+    private final Map<Path, Integer> fileIds;
+    private final Map<String, List<Posting>> postings;
+    private int deadSegments;
+
+    private LogIndex() {
+        instance = this;
+        this.serverIdPattern = Pattern.compile("\\b(?:" + Arrays.stream(ServerType.values()).map(ServerType::getServerId)
+                .filter(id -> id != null && !id.isEmpty()).map(Pattern::quote).collect(Collectors.joining("|")) + ")\\d{2,}\\b", Pattern.CASE_INSENSITIVE);
+        this.files = new ArrayList<>();
+        this.fileIds = new HashMap<>();
+        this.postings = new HashMap<>();
+        this.deadSegments = 0;
+        load();
+    }
+
+    /**
+     * Indexes the content of a log file for the given archive and appends it as a segment to the index file.
+     *
+     * @param archive Path - the archive the postings point to.
+     * @param content Path - the uncompressed content of the archive.
+     * @throws IOException if the content could not be read.
+     * @since 1.0
+     */
+    public void index(Path archive, Path content) throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, List<Long>> segment = new LinkedHashMap<>();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(content))) {
+            long offset = 0;
+            byte[] line;
+            while ((line = readLine(in)) != null) {
+                long lineOffset = offset;
+                offset += line.length + 1;
+                tokenize(new String(line, StandardCharsets.UTF_8), token -> {
+                    List<Long> offsets = segment.computeIfAbsent(token, t -> new ArrayList<>());
+                    if (offsets.size() < MAX_POSTINGS_PER_FILE && (offsets.isEmpty() || offsets.get(offsets.size() - 1) != lineOffset))
+                        offsets.add(lineOffset);
+                });
+            }
+        }
+
+        synchronized (this) {
+            addSegment(archive.normalize(), segment);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(INDEX_FILE, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+                writeSegment(out, archive.normalize(), segment);
+            }
+        }
+        LOG.debug("Indexed %s tokens of %s in %s ms", segment.size(), archive, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Drops the postings of a deleted archive.
+     *
+     * @param archive Path - the deleted archive.
+     * @since 1.0
+     */
+    public synchronized void removed(Path archive) {
+        Integer fileId = fileIds.remove(archive.normalize());
+        if (fileId == null)
+            return;
+        files.set(fileId, null);
+        postings.values().forEach(list -> list.removeIf(posting -> posting.file == fileId));
+        postings.values().removeIf(List::isEmpty);
+        if (++deadSegments >= MIN_DEAD_SEGMENTS && deadSegments > fileIds.size())
+            compact();
+    }
+
+    /**
+     * Searches the archives for a token.
+     *
+     * @param token String - a player uuid, an exception class name or a server id.
+     * @return Map<Path, List<Long>> - the uncompressed line offsets per archive, newest archives first.
+     * @since 1.0
+     */
+    public synchronized Map<Path, List<Long>> search(String token) {
+        Map<Path, List<Long>> result = new LinkedHashMap<>();
+        List<Posting> list = postings.getOrDefault(token.toLowerCase(Locale.ROOT), List.of());
+        list.stream().sorted(Comparator.comparingInt((Posting posting) -> posting.file).reversed().thenComparingLong(posting -> posting.offset))
+                .forEach(posting -> result.computeIfAbsent(files.get(posting.file), file -> new ArrayList<>()).add(posting.offset));
+        return result;
+    }
+
+    /**
+     * Streams the lines at the given uncompressed offsets of an archive.
+     *
+     * @param archive Path - the archive.
+     * @param offsets List<Long> - the ascending line offsets.
+     * @param consumer Consumer<String> - receives every line.
+     * @throws IOException if the archive could not be read.
+     * @since 1.0
+     */
+    public void readLines(Path archive, List<Long> offsets, Consumer<String> consumer) throws IOException {
+        try (InputStream in = new BufferedInputStream(new GZIPInputStream(Files.newInputStream(archive), 64 * 1024))) {
+            long position = 0;
+            for (long offset : offsets) {
+                if (offset < position)
+                    continue;
+                in.skipNBytes(offset - position);
+                byte[] line = readLine(in);
+                if (line == null)
+                    return;
+                position = offset + line.length + 1;
+                consumer.accept(new String(line, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of indexed archives and tokens.
+     *
+     * @return int[] - the archives and the tokens.
+     * @since 1.0
+     */
+    public synchronized int[] getSize() {
+        return new int[]{fileIds.size(), postings.size()};
+    }
+
+    private void tokenize(String line, Consumer<String> consumer) {
+        Matcher uuid = UUID_PATTERN.matcher(line);
+        while (uuid.find())
+            consumer.accept(uuid.group().toLowerCase(Locale.ROOT));
+        Matcher exception = EXCEPTION_PATTERN.matcher(line);
+        while (exception.find()) {
+            consumer.accept(exception.group(2).toLowerCase(Locale.ROOT));
+            if (exception.group(1) != null)
+                consumer.accept(exception.group().toLowerCase(Locale.ROOT));
+        }
+        Matcher serverId = serverIdPattern.matcher(line);
+        while (serverId.find())
+            consumer.accept(serverId.group().toLowerCase(Locale.ROOT));
+    }
+
+    private void addSegment(Path archive, Map<String, List<Long>> segment) {
+        Integer previous = fileIds.get(archive);
+        if (previous != null)
+            removed(archive);
+        int fileId = files.size();
+        files.add(archive);
+        fileIds.put(archive, fileId);
+        segment.forEach((token, offsets) -> {
+            List<Posting> list = postings.computeIfAbsent(token, t -> new ArrayList<>());
+            for (long offset : offsets)
+                list.add(new Posting(fileId, offset));
+        });
+    }
+
+    private void load() {
+        if (!Files.exists(INDEX_FILE))
+            return;
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(INDEX_FILE)))) {
+            while (true) {
+                Path archive;
+                Map<String, List<Long>> segment = new LinkedHashMap<>();
+                try {
+                    archive = Path.of(in.readUTF());
+                    int tokens = in.readInt();
+                    for (int i = 0; i < tokens; i++) {
+                        String token = in.readUTF();
+                        int count = in.readInt();
+                        List<Long> offsets = new ArrayList<>(count);
+                        for (int j = 0; j < count; j++)
+                            offsets.add(in.readLong());
+                        segment.put(token, offsets);
+                    }
+                } catch (EOFException exception) {
+                    break;
+                }
+                if (Files.exists(archive))
+                    addSegment(archive, segment);
+                else
+                    deadSegments++;
+            }
+        } catch (IOException exception) {
+            LOG.error("Could not load log index: %s", exception.getMessage());
+        }
+        LOG.debug("Loaded log index of %s archives in %s ms", fileIds.size(), System.currentTimeMillis() - start);
+        if (deadSegments >= MIN_DEAD_SEGMENTS)
+            compact();
+    }
+
+    /**
+     * Rewrites the index file with the live segments only.
+     */
+    private void compact() {
+        Map<Integer, Map<String, List<Long>>> segments = new HashMap<>();
+        postings.forEach((token, list) -> list.forEach(posting -> segments.computeIfAbsent(posting.file, f -> new LinkedHashMap<>())
+                .computeIfAbsent(token, t -> new ArrayList<>()).add(posting.offset)));
+
+        Path temp = INDEX_FILE.resolveSibling(INDEX_FILE.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (Map.Entry<Integer, Map<String, List<Long>>> entry : segments.entrySet())
+                writeSegment(out, files.get(entry.getKey()), entry.getValue());
+        } catch (IOException exception) {
+            LOG.error("Could not compact log index: %s", exception.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, INDEX_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deadSegments = 0;
+        } catch (IOException exception) {
+            LOG.error("Could not replace log index: %s", exception.getMessage());
+        }
+    }
+
+    private void writeSegment(DataOutputStream out, Path archive, Map<String, List<Long>> segment) throws IOException {
+        out.writeUTF(archive.toString());
+        out.writeInt(segment.size());
+        for (Map.Entry<String, List<Long>> entry : segment.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (long offset : entry.getValue())
+                out.writeLong(offset);
+        }
+    }
+
+    /**
+     * Reads the bytes of a line terminated by a line feed, so the byte offsets of the lines stay exact.
+     */
+    private byte[] readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int read;
+        while ((read = in.read()) != -1 && read != '\n')
+            line.write(read);
+        if (read == -1 && line.size() == 0)
+            return null;
+        return line.toByteArray();
+    }
+
+    private record Posting(int file, long offset) {
+    }
+}
@@ -0,0 +1,287 @@
+package net.fununity.cloud.server.logs;
+
+import net.fununity.cloud.common.utils.CloudLogger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Reads the logs of running servers without copying them.
+ * Every log file is mapped into memory with a {@link MappedLog}, which is shared by all readers of the file
+ * and only remapped, if the file grew since the last read.</p>
+ * <p>
+ * Followed files are watched by a {@link WatchService} on their directory,
+ * so appended lines are passed to the followers as soon as the server writes them.</p>
+ * The mapping of a file has to be closed with {@link #close(Path)} before the file is moved or deleted.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public class LogTail {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(LogTail.class.getSimpleName());
+    private static LogTail instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return LogTail - the log tail.
+     * @since 1.0
+     */
+    public static LogTail getInstance() {
+        if (instance == null)
+            instance = new LogTail();
+        return instance;
+    }
+
+    private final Map<Path, MappedLog> logs;
+    private final Map<String, Follower> followers;
+    private final Map<Path, WatchKey> watchedDirectories;
+    private final WatchService watchService;
+
+    private LogTail() {
+        instance = this;
+        this.logs = new ConcurrentHashMap<>();
+        this.followers = new ConcurrentHashMap<>();
+        this.watchedDirectories = new HashMap<>();
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this::watch, "LogTail");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException exception) {
+            LOG.error("Could not create log watcher, following logs is not possible: %s", exception.getMessage());
+        }
+        this.watchService = service;
+    }
+
+    /**
+     * Gets the last lines of a log file.
+     *
+     * @param file  Path - the log file.
+     * @param lines int - the maximum amount of lines.
+     * @return List<String> - the lines in the order of the file.
+     * @throws IOException if the file could not be mapped.
+     * @since 1.0
+     */
+    public List<String> tail(Path file, int lines) throws IOException {
+        MappedLog log = open(file);
+        log.refresh();
+        return log.tail(lines);
+    }
+
+    /**
+     * Gets a range of lines of a log file.
+     *
+     * @param file     Path - the log file.
+     * @param fromLine long - the first line, starting with 0.
+     * @param count    int - the maximum amount of lines.
+     * @return List<String> - the lines.
+     * @throws IOException if the file could not be mapped.
+     * @since 1.0
+     */
+    public List<String> range(Path file, long fromLine, int count) throws IOException {
+        MappedLog log = open(file);
+        log.refresh();
+        return log.range(fromLine, count);
+    }
+
+    /**
+     * Gets the amount of complete lines of a log file.
+     *
+     * @param file Path - the log file.
+     * @return long - the amount of lines.
+     * @throws IOException if the file could not be mapped.
+     * @since 1.0
+     */
+    public long getLineCount(Path file) throws IOException {
+        MappedLog log = open(file);
+        log.refresh();
+        return log.getLineCount();
+    }
+
+    /**
+     * Gets the first line of a log file, which can still be read, as only the end of large files is mapped.
+     *
+     * @param file Path - the log file.
+     * @return long - the first line.
+     * @throws IOException if the file could not be mapped.
+     * @since 1.0
+     */
+    public long getFirstLine(Path file) throws IOException {
+        MappedLog log = open(file);
+        log.refresh();
+        return log.getFirstLine();
+    }
+
+    /**
+     * Passes every line appended to the log file to the consumer, until {@link #unfollow(String)} is called.
+     * A previous follower with the same name is replaced.
+     *
+     * @param name     String - the name of the follower, e.g. the server id.
+     * @param file     Path - the log file.
+     * @param consumer Consumer<String> - receives the lines on the watcher thread.
+     * @return boolean - the file is followed.
+     * @throws IOException if the file could not be mapped or watched.
+     * @since 1.0
+     */
+    public boolean follow(String name, Path file, Consumer<String> consumer) throws IOException {
+        if (watchService == null)
+            return false;
+        MappedLog log = open(file);
+        log.refresh();
+        Follower follower = new Follower(log, consumer);
+        follower.position = log.getSize();
+        follower.generation = log.getGeneration();
+
+        Path directory = file.toAbsolutePath().normalize().getParent();
+        synchronized (watchedDirectories) {
+            if (!watchedDirectories.containsKey(directory))
+                watchedDirectories.put(directory, directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+        }
+        Follower previous = followers.put(name, follower);
+        if (previous != null)
+            cancelWatch(previous.log.getFile());
+        return true;
+    }
+
+    /**
+     * Stops following a log file.
+     *
+     * @param name String - the name of the follower.
+     * @return boolean - the follower existed.
+     * @since 1.0
+     */
+    public boolean unfollow(String name) {
+        Follower follower = followers.remove(name);
+        if (follower == null)
+            return false;
+        cancelWatch(follower.log.getFile());
+        return true;
+    }
+
+    /**
+     * Gets the names of all followers.
+     *
+     * @return List<String> - the names.
+     * @since 1.0
+     */
+    public List<String> getFollowers() {
+        return new ArrayList<>(followers.keySet());
+    }
+
+    /**
+     * Passes the remaining lines to the followers of the file, stops following it and releases its mapping.
+     * Has to be called before the log file is moved, e.g. when the log of a stopped server is archived.
+     *
+     * @param file Path - the log file.
+     * @since 1.0
+     */
+    public void close(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        List<String> closed = new ArrayList<>();
+        followers.forEach((name, follower) -> {
+            if (follower.log.getFile().equals(key)) {
+                poll(follower);
+                closed.add(name);
+            }
+        });
+        closed.forEach(followers::remove);
+        if (!closed.isEmpty())
+            cancelWatch(key);
+        logs.remove(key);
+    }
+
+    private MappedLog open(Path file) {
+        return logs.computeIfAbsent(file.toAbsolutePath().normalize(), MappedLog::new);
+    }
+
+    /**
+     * Cancels the watch of the directory of the file, if no other follower needs it anymore.
+     */
+    private void cancelWatch(Path file) {
+        Path directory = file.getParent();
+        if (followers.values().stream().anyMatch(follower -> follower.log.getFile().getParent().equals(directory)))
+            return;
+        synchronized (watchedDirectories) {
+            WatchKey key = watchedDirectories.remove(directory);
+            if (key != null)
+                key.cancel();
+        }
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException exception) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            boolean overflow = false;
+            List<Path> changed = new ArrayList<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                    overflow = true;
+                else
+                    changed.add(directory.resolve((Path) event.context()));
+            }
+            key.reset();
+
+            for (Follower follower : followers.values()) {
+                if (overflow ? follower.log.getFile().getParent().equals(directory) : changed.contains(follower.log.getFile()))
+                    poll(follower);
+            }
+        }
+    }
+
+    /**
+     * Passes the lines appended since the last poll to the follower.
+     */
+    private void poll(Follower follower) {
+        synchronized (follower) {
+            try {
+                follower.log.refresh();
+            } catch (IOException exception) {
+                LOG.warn("Could not read %s: %s", follower.log.getFile(), exception.getMessage());
+                return;
+            }
+            if (follower.generation != follower.log.getGeneration()) {
+                follower.generation = follower.log.getGeneration();
+                follower.position = 0;
+            }
+            follower.position = follower.log.readFrom(follower.position, follower.consumer);
+        }
+    }
+
+    private static final class Follower {
+        private final MappedLog log;
+        private final Consumer<String> consumer;
+        private long position;
+        private int generation;
+
+        private Follower(MappedLog log, Consumer<String> consumer) {
+            this.log = log;
+            this.consumer = consumer;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package net.fununity.cloud.server.logs;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * A log file, which is growing while it is read, mapped into memory.
+ * The mapping is only renewed, if the file grew, and lines are decoded straight out of the mapping, so the file is never copied.</p>
+ * Every {@link #CHECKPOINT_INTERVAL}th line offset is remembered, while the file is scanned incrementally,
+ * so ranges of lines are found without scanning the file from the start.
+ * Only the last {@link #MAX_MAPPING} bytes of a larger file are mapped. Line numbers keep counting from the start of the file,
+ * while the window moves forward, lines before the first checkpoint in the window cannot be read anymore.
+ * If the file shrinks or is replaced, e.g. by the log rotation of a restarted server, it is read from the start again.
+ *
+ * @author Niko
+ * @see LogTail
+ * @since 1.0
+ */
+final class MappedLog {
+
+    private static final int CHECKPOINT_INTERVAL = 1024;
+    private static final long MAX_MAPPING = 512L * 1024 * 1024;
+
+    private final Path file;
+    private final List<Long> checkpoints;
+    private MappedByteBuffer buffer;
+    private Object fileKey;
+    private long mappedFrom;
+    private long size;
+    private long scannedOffset;
+    private long scannedLines;
+    private int droppedCheckpoints;
+    private int generation;
+
+    MappedLog(Path file) {
+        this.file = file;
+        this.checkpoints = new ArrayList<>();
+        reset();
+    }
+
+    /**
+     * Maps the appended bytes of the file.
+     *
+     * @return boolean - the file changed since the last refresh.
+     * @throws IOException if the file could not be mapped.
+     * @since 1.0
+     */
+    synchronized boolean refresh() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException exception) {
+            boolean changed = size > 0;
+            reset();
+            return changed;
+        }
+        boolean replaced = fileKey != null && !Objects.equals(fileKey, attributes.fileKey());
+        if (replaced || attributes.size() < size)
+            reset();
+        if (attributes.size() == size)
+            return replaced;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long current = channel.size();
+            long from = Math.max(0, current - MAX_MAPPING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, current - from);
+            this.mappedFrom = from;
+            this.size = current;
+            this.fileKey = attributes.fileKey();
+        }
+        if (scannedOffset < mappedFrom) {
+            // the window skipped lines, which were never scanned, line numbers count from the first complete line of the window
+            checkpoints.clear();
+            droppedCheckpoints = 0;
+            scannedOffset = mappedFrom == 0 ? 0 : nextLine(mappedFrom);
+            scannedLines = 0;
+        } else {
+            while (!checkpoints.isEmpty() && checkpoints.get(0) < mappedFrom) {
+                checkpoints.remove(0);
+                droppedCheckpoints++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the last lines of the file.
+     *
+     * @param lines int - the maximum amount of lines.
+     * @return List<String> - the lines in the order of the file.
+     * @since 1.0
+     */
+    synchronized List<String> tail(int lines) {
+        List<String> result = new ArrayList<>(Math.min(lines, 256));
+        long end = size;
+        if (end > mappedFrom && byteAt(end - 1) == '\n')
+            end--;
+        long position = end - 1;
+        while (result.size() < lines && end > mappedFrom) {
+            while (position >= mappedFrom && byteAt(position) != '\n')
+                position--;
+            result.add(decode(position + 1, end));
+            end = position;
+            position--;
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Gets a range of complete lines.
+     *
+     * @param fromLine long - the first line, starting with 0, lines before {@link #getFirstLine()} are skipped.
+     * @param count    int - the maximum amount of lines.
+     * @return List<String> - the lines.
+     * @since 1.0
+     */
+    synchronized List<String> range(long fromLine, int count) {
+        scan();
+        List<String> result = new ArrayList<>(Math.min(count, 256));
+        fromLine = Math.max(fromLine, getFirstLine());
+        if (fromLine >= scannedLines || checkpoints.isEmpty())
+            return result;
+        int checkpoint = (int) (fromLine / CHECKPOINT_INTERVAL);
+        long position = checkpoints.get(checkpoint - droppedCheckpoints);
+        long line = (long) checkpoint * CHECKPOINT_INTERVAL;
+        while (line < fromLine) {
+            position = nextLine(position);
+            line++;
+        }
+        for (; line < scannedLines && result.size() < count; line++) {
+            long next = nextLine(position);
+            result.add(decode(position, next - 1));
+            position = next;
+        }
+        return result;
+    }
+
+    /**
+     * Passes the complete lines starting at an offset to the consumer.
+     *
+     * @param offset   long - the offset of the first line.
+     * @param consumer Consumer<String> - receives the lines.
+     * @return long - the offset after the last complete line, the incomplete rest is read on the next call.
+     * @since 1.0
+     */
+    synchronized long readFrom(long offset, Consumer<String> consumer) {
+        long position = Math.max(offset, mappedFrom);
+        long start = position;
+        for (; position < size; position++) {
+            if (byteAt(position) == '\n') {
+                consumer.accept(decode(start, position));
+                start = position + 1;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Gets the amount of complete lines of the mapped file.
+     *
+     * @return long - the amount of lines.
+     * @since 1.0
+     */
+    synchronized long getLineCount() {
+        scan();
+        return scannedLines;
+    }
+
+    /**
+     * Gets the first line, which can still be read by {@link #range(long, int)}, as the start of the file is not mapped anymore.
+     *
+     * @return long - the first line.
+     * @since 1.0
+     */
+    synchronized long getFirstLine() {
+        return (long) droppedCheckpoints * CHECKPOINT_INTERVAL;
+    }
+
+    synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the generation of the file, which changes every time the file is read from the start again.
+     * Offsets of an older generation are not valid anymore.
+     *
+     * @return int - the generation.
+     * @since 1.0
+     */
+    synchronized int getGeneration() {
+        return generation;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Counts the lines appended since the last scan and remembers the checkpoints.
+     */
+    private void scan() {
+        for (long position = scannedOffset; position < size; position++) {
+            if (byteAt(position) != '\n')
+                continue;
+            if (scannedLines % CHECKPOINT_INTERVAL == 0)
+                checkpoints.add(scannedOffset);
+            scannedLines++;
+            scannedOffset = position + 1;
+        }
+    }
+
+    private long nextLine(long position) {
+        while (position < size && byteAt(position) != '\n')
+            position++;
+        return position + 1;
+    }
+
+    private byte byteAt(long position) {
+        return buffer.get((int) (position - mappedFrom));
+    }
+
+    private String decode(long from, long to) {
+        if (to > from && byteAt(to - 1) == '\r')
+            to--;
+        byte[] bytes = new byte[(int) (to - from)];
+        buffer.get((int) (from - mappedFrom), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void reset() {
+        this.buffer = null;
+        this.fileKey = null;
+        this.mappedFrom = 0;
+        this.size = 0;
+        this.scannedOffset = 0;
+        this.scannedLines = 0;
+        this.droppedCheckpoints = 0;
+        this.checkpoints.clear();
+        this.generation++;
+    }
+}
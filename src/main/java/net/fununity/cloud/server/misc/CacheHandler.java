@@ -1,23 +1,88 @@
 package net.fununity.cloud.server.misc;
 
-import net.fununity.cloud.common.cache.KeyValueCache;
 import net.fununity.cloud.common.utils.CacheType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.cache.CacheConfig;
+import net.fununity.cloud.server.cache.CacheSnapshot;
+import net.fununity.cloud.server.cache.CacheStore;
+import net.fununity.cloud.server.cache.PlayerSession;
+import net.fununity.cloud.server.cache.PlayerSessions;
+import net.fununity.cloud.server.cache.TypedCache;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.UUID;
 
 /**
  * Util class to handle multiple caches in one place.
- * @see net.fununity.cloud.common.cache.KeyValueCache
+ * Every {@link CacheType} is configured and gets its store when the handler is created,
+ * so the caches are never modified afterwards and can be read by every netty worker without locking.
+ * The caches are saved periodically and on shutdown into a {@link CacheSnapshot}. After a restart each cache is restored
+ * out of the snapshot in the background or on its first use, so the players already online keep their data.
+ * The time to live of every type, which is not part of the player sessions, is configured in the cache configuration file.
+ * Expired entries are removed every second by the timing wheels of the stores.
+ * @see TypedCache
  * @since 0.0.1
  * @author Marco Hajek
  */
 public class CacheHandler {
 
+    private static final CloudLogger LOG = CloudLogger.getLogger(CacheHandler.class.getSimpleName());
+    private static final String FILE_NAME = "cache.properties";
+    private static final long PLAYER_DATA_TTL = 10 * 60 * 1000L;
+    private static final long PURGE_PERIOD = 1000L;
+    private static final Set<CacheType> SESSION_TYPES = EnumSet.of(CacheType.CACHE_PLAYER_PERMISSION_GROUP,
+            CacheType.CACHE_PLAYER_PARTY, CacheType.CACHE_PLAYER_LANG);
+    private static final int MAX_PLAYER_ENTRIES = 50000;
+    private static final long ENTRY_BYTES = 96;
+    private static final Path SNAPSHOT_FILE = Path.of("cache.snapshot");
+    private static final long SNAPSHOT_PERIOD = 5 * 60 * 1000L;
+    private static final long MAX_SNAPSHOT_AGE = 30 * 60 * 1000L;
+
     private static CacheHandler instance;
-    private final HashMap<CacheType, KeyValueCache> caches;
+    private final Map<CacheType, TypedCache<?, ?>> caches;
+    private final PlayerSessions sessions;
+    private final Map<CacheType, PendingRestore> pendingRestores;
 
     private CacheHandler(){
-        caches = new HashMap<>();
+        instance = this;
+        sessions = new PlayerSessions(MAX_PLAYER_ENTRIES);
+        caches = new EnumMap<>(CacheType.class);
+        Properties properties = loadConfig();
+        for (CacheType type : CacheType.values())
+            caches.put(type, new TypedCache<>(configureExpiry(type, createConfig(type), properties)));
+        pendingRestores = new EnumMap<>(CacheType.class);
+        openSnapshot();
+
+        Timer timer = new Timer("CacheHandler", true);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                purgeExpired();
+            }
+        }, PURGE_PERIOD, PURGE_PERIOD);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                saveSnapshot();
+            }
+        }, SNAPSHOT_PERIOD, SNAPSHOT_PERIOD);
+
+        if (!pendingRestores.isEmpty()) {
+            Thread thread = new Thread(() -> pendingRestores.keySet().forEach(this::restore), "CacheRestore");
+            thread.setDaemon(true);
+            thread.start();
+        }
     }
 
     /**
@@ -32,40 +97,264 @@ public class CacheHandler {
     }
 
     /**
-     * Adds a cache to the handler.
+     * Creates the configuration of a cache type.
      * @param type CacheType - the type of the cache.
-     * @param cache KeyValueCache - the cache.
-     * @since 0.0.1
+     * @return CacheConfig - the configuration of the type.
+     * @since 1.0
      */
-    public void addCache(CacheType type, KeyValueCache cache){
-        caches.put(type, cache);
+    private CacheConfig<?, ?> createConfig(CacheType type) {
+        return switch (type) {
+            case CACHE_PLAYER_DATA -> CacheConfig.of(Object::toString, Object::toString, PLAYER_DATA_TTL)
+                    .bounded(MAX_PLAYER_ENTRIES, 32L * 1024 * 1024, CacheHandler::weighString);
+            case CACHE_PLAYER_PERMISSION_GROUP -> CacheConfig.session(sessions, value -> Integer.parseInt(value.toString()),
+                    session -> session.hasPermissionGroup() ? session.getPermissionGroup() : null,
+                    (session, group) -> session.withPermissionGroup(group != null ? group : PlayerSession.NO_PERMISSION_GROUP));
+            case CACHE_PLAYER_PARTY -> CacheConfig.session(sessions, value -> (UUID) value, PlayerSession::getParty, PlayerSession::withParty);
+            case CACHE_PLAYER_LANG -> CacheConfig.session(sessions, Object::toString, PlayerSession::getLang, PlayerSession::withLang);
+            case CACHE_PLAYER_TEXTURE -> CacheConfig.offHeap(key -> (UUID) key, -1)
+                    .bounded(MAX_PLAYER_ENTRIES, 64L * 1024 * 1024, null);
+            default -> CacheConfig.of(key -> (UUID) key, Object::toString, -1)
+                    .bounded(MAX_PLAYER_ENTRIES, 16L * 1024 * 1024, CacheHandler::weighString);
+        };
+    }
+
+    /**
+     * Loads the cache configuration file.
+     * Will create the file with the default expiry of every type, if it does not exist.
+     */
+    private Properties loadConfig() {
+        Properties properties = new Properties();
+        try {
+            Path file = Path.of(FILE_NAME);
+            if (!Files.exists(file)) {
+                StringBuilder defaults = new StringBuilder();
+                for (CacheType type : CacheType.values()) {
+                    if (!SESSION_TYPES.contains(type))
+                        defaults.append("ttl.%s=%s%nrefresh.%s=false%n".formatted(type, Math.max(0, createConfig(type).getTtl() / 1000), type));
+                }
+                Files.writeString(file, defaults);
+            }
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        } catch (IOException exception) {
+            LOG.error("Could not load cache config, using defaults: %s", exception.getMessage());
+        }
+        return properties;
+    }
+
+    /**
+     * Applies the configured expiry of a type to its configuration.
+     */
+    private CacheConfig<?, ?> configureExpiry(CacheType type, CacheConfig<?, ?> config, Properties properties) {
+        if (SESSION_TYPES.contains(type))
+            return config;
+        String ttl = properties.getProperty("ttl." + type.name());
+        boolean refresh = Boolean.parseBoolean(properties.getProperty("refresh." + type.name(), "false").trim());
+        try {
+            return config.expiring(ttl != null ? Long.parseLong(ttl.trim()) * 1000 : config.getTtl(), refresh);
+        } catch (NumberFormatException exception) {
+            LOG.error("Illegal time to live of %s in cache config, using default: %s", type, exception.getMessage());
+            return config.expiring(config.getTtl(), refresh);
+        }
+    }
+
+    /**
+     * Estimates the heap bytes of an entry with a string value.
+     * @param value String - the string.
+     * @return long - the estimated bytes.
+     * @since 1.0
+     */
+    private static long weighString(String value) {
+        return ENTRY_BYTES + 56 + 2L * value.length();
     }
 
     /**
      * Gets the cache of the given CacheType.
      * @param type CacheType - the type of the wanted cache.
+     * @return TypedCache - the cache of the type.
      * @since 0.0.1
      */
-    public KeyValueCache getCache(CacheType type){
-        return this.caches.get(type);
+    public TypedCache<?, ?> getCache(CacheType type){
+        return cache(type);
     }
 
     /**
-     * Removes a saved cache of the given cache type.
-     * @param type CacheType - the type of cache to be removed.
-     * @since 0.0.1
+     * Gets the sessions of the online players, which hold the permission group, party and language of the players.
+     * @return PlayerSessions - the sessions.
+     * @since 1.0
      */
-    public void removeCache(CacheType type){
-        caches.remove(type);
+    public PlayerSessions getSessions() {
+        SESSION_TYPES.forEach(this::restore);
+        return sessions;
     }
 
     /**
-     * Checks if a cache is already saved for the given CacheType.
+     * Gets the session of a player and records the lookup in the metrics of every session type,
+     * as a server join reads all of them at once.
+     * @param uuid UUID - the uuid of the player.
+     * @return PlayerSession - the session or null, if the player has none.
+     * @since 1.0
+     */
+    public PlayerSession getSession(UUID uuid) {
+        PlayerSession session = getSessions().get(uuid);
+        caches.get(CacheType.CACHE_PLAYER_PERMISSION_GROUP).getMetrics().recordGet(session != null && session.hasPermissionGroup());
+        caches.get(CacheType.CACHE_PLAYER_PARTY).getMetrics().recordGet(session != null && session.getParty() != null);
+        caches.get(CacheType.CACHE_PLAYER_LANG).getMetrics().recordGet(session != null && session.getLang() != null);
+        return session;
+    }
+
+    /**
+     * Starts the session of a joining player and records the permission group and language as puts.
+     * @param uuid UUID - the uuid of the player.
+     * @param permissionGroup int - the id of the permission group.
+     * @param lang String - the language.
+     * @since 1.0
+     */
+    public void joinSession(UUID uuid, int permissionGroup, String lang) {
+        getSessions().join(uuid, permissionGroup, lang);
+        caches.get(CacheType.CACHE_PLAYER_PERMISSION_GROUP).getMetrics().recordPut();
+        caches.get(CacheType.CACHE_PLAYER_LANG).getMetrics().recordPut();
+    }
+
+    /**
+     * Removes the session of a quitting player and records a remove of every session type.
+     * @param uuid UUID - the uuid of the player.
+     * @return boolean - the player had a session.
+     * @since 1.0
+     */
+    public boolean quitSession(UUID uuid) {
+        SESSION_TYPES.forEach(type -> caches.get(type).getMetrics().recordRemove());
+        return getSessions().quit(uuid);
+    }
+
+    /**
+     * Caches a value of an event.
      * @param type CacheType - the type of the cache.
-     * @return True/False.
-     * @since 0.0.1
+     * @param key Object - the key of the value.
+     * @param value Object - the value.
+     * @since 1.0
      */
-    public boolean exists(CacheType type){
-        return caches.containsKey(type);
+    public void put(CacheType type, Object key, Object value) {
+        cache(type).put(key, value);
+    }
+
+    /**
+     * Gets a cached value.
+     * @param type CacheType - the type of the cache.
+     * @param key Object - the key of the value.
+     * @return Object - the value or null, if it is not cached.
+     * @since 1.0
+     */
+    public Object get(CacheType type, Object key) {
+        return cache(type).get(key);
+    }
+
+    /**
+     * Removes a cached value.
+     * @param type CacheType - the type of the cache.
+     * @param key Object - the key of the value.
+     * @since 1.0
+     */
+    public void remove(CacheType type, Object key) {
+        cache(type).remove(key);
+    }
+
+    /**
+     * Saves every cache into the snapshot file, which is restored on the next start.
+     * @since 1.0
+     */
+    public synchronized void saveSnapshot() {
+        long start = System.currentTimeMillis();
+        pendingRestores.keySet().forEach(this::restore);
+        Map<String, CacheStore<?, ?>> stores = new LinkedHashMap<>();
+        caches.forEach((type, cache) -> stores.put(type.name(), cache.getStore()));
+        try {
+            int entries = CacheSnapshot.write(SNAPSHOT_FILE, stores);
+            LOG.debug("Saved cache snapshot of %s entries in %s ms", entries, System.currentTimeMillis() - start);
+        } catch (IOException exception) {
+            LOG.warn("Could not save cache snapshot: %s", exception.getMessage());
+        }
+    }
+
+    /**
+     * Gets the cache of a type, restores it out of the snapshot first, if that did not happen yet.
+     */
+    private TypedCache<?, ?> cache(CacheType type) {
+        restore(type);
+        return caches.get(type);
+    }
+
+    /**
+     * Maps the snapshot of the last run and marks its sections, which are not outdated, for their restore.
+     */
+    private void openSnapshot() {
+        if (!Files.exists(SNAPSHOT_FILE))
+            return;
+        try {
+            CacheSnapshot opened = CacheSnapshot.open(SNAPSHOT_FILE);
+            long age = System.currentTimeMillis() - opened.getCreatedAt();
+            if (age > MAX_SNAPSHOT_AGE) {
+                LOG.info("Ignoring cache snapshot of %s minutes ago", age / 60000);
+                return;
+            }
+            for (CacheType type : CacheType.values()) {
+                long ttl = caches.get(type).getConfig().getTtl();
+                if (opened.hasSection(type.name()) && (ttl <= 0 || age < ttl))
+                    pendingRestores.put(type, new PendingRestore(opened));
+            }
+        } catch (IOException exception) {
+            LOG.warn("Could not open cache snapshot: %s", exception.getMessage());
+        }
+    }
+
+    /**
+     * Restores a cache out of the snapshot, callers of the same cache wait until it is restored.
+     * Every type has its own lock, so the restore of one cache does not block the callers of the others,
+     * and a restored type is only checked by a volatile read.
+     */
+    private void restore(CacheType type) {
+        PendingRestore pending = pendingRestores.get(type);
+        if (pending == null || pending.restored)
+            return;
+        synchronized (pending) {
+            if (pending.restored)
+                return;
+            long start = System.currentTimeMillis();
+            TypedCache<?, ?> cache = caches.get(type);
+            try {
+                int restored = pending.snapshot.restore(type.name(), cache::put);
+                LOG.debug("Restored %s entries of %s in %s ms", restored, type, System.currentTimeMillis() - start);
+            } catch (IOException | RuntimeException exception) {
+                LOG.warn("Could not restore %s out of the cache snapshot: %s", type, exception.getMessage());
+            }
+            // the mapping is released once every pending type dropped its reference
+            pending.snapshot = null;
+            pending.restored = true;
+        }
+    }
+
+    /**
+     * Removes the expired entries of every cache.
+     * @since 1.0
+     */
+    private void purgeExpired() {
+        caches.forEach((type, cache) -> {
+            int purged = cache.getStore().purgeExpired();
+            if (purged > 0)
+                LOG.debug("Purged %s expired entries of %s", purged, type);
+        });
+    }
+
+    /**
+     * The restore of one cache type out of the snapshot.
+     */
+    private static final class PendingRestore {
+        private CacheSnapshot snapshot;
+        private volatile boolean restored;
+
+        private PendingRestore(CacheSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
     }
 }
@@ -0,0 +1,201 @@
+package net.fununity.cloud.server.misc;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.server.LaunchProfile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Handler class for the managed application class data sharing archives of the templates.
+ * The first launch of a template without a valid archive is used as training run and dumps the loaded classes at exit.
+ * The archive is stored next to the template, so it will not be copied into the server directories,
+ * and is invalidated as soon as the jars of the template or the jvm of the profile change.
+ *
+ * @author Niko
+ * @see LaunchProfile#isManagedCds()
+ * @since 1.0
+ */
+public class ClassDataSharingHandler {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(ClassDataSharingHandler.class.getSimpleName());
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final String FINGERPRINT_SUFFIX = ".jsa.fingerprint";
+    private static final String TRAINING_SUFFIX = ".jsa.training";
+    private static ClassDataSharingHandler instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return ClassDataSharingHandler - the handler.
+     * @since 1.0
+     */
+    public static ClassDataSharingHandler getInstance() {
+        if (instance == null)
+            instance = new ClassDataSharingHandler();
+        return instance;
+    }
+
+    private final Map<ServerType, Training> trainings;
+
+    private ClassDataSharingHandler() {
+        instance = this;
+        this.trainings = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the jvm flags for the class data sharing archive of the given server type.
+     * Uses the archive if it is valid for the current template, otherwise starts a training run if none is running yet.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @param profile    {@link LaunchProfile} - the profile of the server type.
+     * @return List<String> - the jvm flags.
+     * @since 1.0
+     */
+    public List<String> getLaunchFlags(ServerType serverType, LaunchProfile profile) {
+        String fingerprint;
+        try {
+            fingerprint = createFingerprint(serverType, profile);
+        } catch (IOException exception) {
+            LOG.error("Could not fingerprint template of %s: %s", serverType, exception.getMessage());
+            return List.of();
+        }
+
+        Path archive = getArchivePath(serverType, ARCHIVE_SUFFIX);
+        Path fingerprintFile = getArchivePath(serverType, FINGERPRINT_SUFFIX);
+        try {
+            if (Files.exists(archive) && Files.exists(fingerprintFile)
+                && fingerprint.equals(Files.readString(fingerprintFile, StandardCharsets.UTF_8).trim()))
+                return List.of("-XX:SharedArchiveFile=" + archive);
+
+            if (Files.deleteIfExists(archive))
+                LOG.info("Class data sharing archive of %s is outdated and was deleted", serverType);
+            Files.deleteIfExists(fingerprintFile);
+        } catch (IOException exception) {
+            LOG.error("Could not check class data sharing archive of %s: %s", serverType, exception.getMessage());
+            return List.of();
+        }
+
+        Path trainingArchive = getArchivePath(serverType, TRAINING_SUFFIX);
+        if (trainings.putIfAbsent(serverType, new Training(fingerprint, trainingArchive)) != null)
+            return List.of();
+
+        LOG.info("Starting class data sharing training run for %s", serverType);
+        return List.of("-XX:ArchiveClassesAtExit=" + trainingArchive);
+    }
+
+    /**
+     * Watches the process of a launched server.
+     * If the server is the training run of its type, the archive will be installed after the process exited.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @param process    Process - the launched process.
+     * @since 1.0
+     */
+    public void launched(ServerType serverType, Process process) {
+        Training training = trainings.get(serverType);
+        if (training == null || training.process != null)
+            return;
+        training.process = process;
+        process.onExit().thenRun(() -> finishTraining(serverType, training));
+    }
+
+    /**
+     * Cancels the training run of the given server type, if it could not be launched.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @since 1.0
+     */
+    public void cancelTraining(ServerType serverType) {
+        Training training = trainings.get(serverType);
+        if (training != null && training.process == null)
+            trainings.remove(serverType, training);
+    }
+
+    private void finishTraining(ServerType serverType, Training training) {
+        try {
+            if (!Files.exists(training.archive) || Files.size(training.archive) == 0) {
+                LOG.warn("Training run of %s did not dump a class data sharing archive", serverType);
+                return;
+            }
+            if (!training.fingerprint.equals(createFingerprint(serverType, LaunchProfileHandler.getInstance().getProfile(serverType)))) {
+                LOG.info("Template of %s changed during the training run, discarding archive", serverType);
+                Files.deleteIfExists(training.archive);
+                return;
+            }
+
+            Files.move(training.archive, getArchivePath(serverType, ARCHIVE_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(getArchivePath(serverType, FINGERPRINT_SUFFIX), training.fingerprint, StandardCharsets.UTF_8);
+            LOG.info("Class data sharing archive of %s was created", serverType);
+        } catch (IOException exception) {
+            LOG.error("Could not install class data sharing archive of %s: %s", serverType, exception.getMessage());
+        } finally {
+            trainings.remove(serverType, training);
+        }
+    }
+
+    /**
+     * Creates a fingerprint of every jar of the template and the jvm of the profile.
+     * World directories are skipped, as they cannot contain classes.
+     */
+    private String createFingerprint(ServerType serverType, LaunchProfile profile) throws IOException {
+        Path template = Paths.get(ServerUtils.getTemplatePath(serverType));
+        List<String> entries = new ArrayList<>();
+        entries.add(profile.getJavaPath());
+        entries.add(profile.getGarbageCollector().name());
+        Files.walkFileTree(template, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return Files.exists(dir.resolve("level.dat")) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.getFileName().toString().endsWith(".jar"))
+                    entries.add(template.relativize(file) + ":" + attrs.size() + ":" + attrs.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        entries.sort(String::compareTo);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String entry : entries)
+                digest.update((entry + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+    }
+
+    private Path getArchivePath(ServerType serverType, String suffix) {
+        String template = ServerUtils.getTemplatePath(serverType);
+        return Paths.get(template.substring(0, template.length() - 1) + suffix).toAbsolutePath().normalize();
+    }
+
+    private static final class Training {
+        private final String fingerprint;
+        private final Path archive;
+        private volatile Process process;
+
+        private Training(String fingerprint, Path archive) {
+            this.fingerprint = fingerprint;
+            this.archive = archive;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package net.fununity.cloud.server.misc;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.server.LaunchProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Singleton class for handling the launch profiles of every {@link ServerType}.
+ * The profiles are read out of the launch profile file in which every key is prefixed with the server type or 'default'.
+ *
+ * @author Niko
+ * @see LaunchProfile
+ * @since 1.0
+ */
+public class LaunchProfileHandler {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(LaunchProfileHandler.class.getSimpleName());
+    private static final String FILE_NAME = "launchprofiles.properties";
+    private static final String DEFAULT_PREFIX = "default";
+    private static LaunchProfileHandler instance;
+
+    /**
+     * Gets the instance of the singleton.
+     *
+     * @return LaunchProfileHandler - the handler.
+     * @since 1.0
+     */
+    public static LaunchProfileHandler getInstance() {
+        if (instance == null)
+            instance = new LaunchProfileHandler();
+        return instance;
+    }
+
+    private final Map<ServerType, LaunchProfile> profiles;
+
+    private LaunchProfileHandler() {
+        instance = this;
+        this.profiles = new EnumMap<>(ServerType.class);
+        loadProfiles();
+    }
+
+    /**
+     * Loads every profile out of the launch profile file.
+     * Will create the file with the default profiles, if it does not exist.
+     *
+     * @since 1.0
+     */
+    public void loadProfiles() {
+        Properties properties = new Properties();
+        try {
+            File file = new File(FILE_NAME);
+            if (!file.exists() && file.createNewFile())
+                saveDefaultProfiles(file.toPath());
+
+            try (Reader reader = Files.newBufferedReader(file.toPath())) {
+                properties.load(reader);
+            }
+        } catch (IOException exception) {
+            LOG.error("Could not load launch profiles, using defaults: " + exception.getMessage());
+        }
+
+        Map<ServerType, LaunchProfile> loaded = new EnumMap<>(ServerType.class);
+        for (ServerType serverType : ServerType.values())
+            loaded.put(serverType, createProfile(properties, serverType));
+
+        synchronized (profiles) {
+            profiles.clear();
+            profiles.putAll(loaded);
+        }
+        LOG.debug("Loaded %s launch profiles", loaded.size());
+    }
+
+    /**
+     * Gets the launch profile of the given server type.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @return {@link LaunchProfile} - the profile.
+     * @since 1.0
+     */
+    public LaunchProfile getProfile(ServerType serverType) {
+        synchronized (profiles) {
+            return profiles.get(serverType);
+        }
+    }
+
+    private LaunchProfile createProfile(Properties properties, ServerType serverType) {
+        String gc = getProperty(properties, serverType, "gc", "G1");
+        LaunchProfile.GarbageCollector garbageCollector;
+        try {
+            garbageCollector = LaunchProfile.GarbageCollector.valueOf(gc.toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            LOG.error("Illegal garbage collector %s for %s, using G1", gc, serverType);
+            garbageCollector = LaunchProfile.GarbageCollector.G1;
+        }
+
+        int maxHeap = getIntProperty(properties, serverType, "heap", 1024);
+        String cdsArchive = getProperty(properties, serverType, "cds", "");
+
+        return new LaunchProfile(serverType,
+                getProperty(properties, serverType, "java", "java"),
+                getProperty(properties, serverType, "jar", "spigot.jar"),
+                getIntProperty(properties, serverType, "minHeap", maxHeap),
+                maxHeap,
+                garbageCollector,
+                splitArguments(getProperty(properties, serverType, "flags", "")),
+                splitArguments(getProperty(properties, serverType, "args", "")),
+                getIntProperty(properties, serverType, "maxPlayers", 20),
+                cdsArchive.isBlank() ? null : cdsArchive,
+                getIntProperty(properties, serverType, "startTimeout", 180),
+                getIntProperty(properties, serverType, "startRetries", 1));
+    }
+
+    private String getProperty(Properties properties, ServerType serverType, String key, String defaultValue) {
+        String value = properties.getProperty(serverType.name() + "." + key);
+        if (value == null)
+            value = properties.getProperty(DEFAULT_PREFIX + "." + key, defaultValue);
+        return value.trim();
+    }
+
+    private int getIntProperty(Properties properties, ServerType serverType, String key, int defaultValue) {
+        String value = getProperty(properties, serverType, key, String.valueOf(defaultValue));
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException exception) {
+            LOG.error("Illegal number %s for %s.%s in launch profiles", value, serverType, key);
+            return defaultValue;
+        }
+    }
+
+    private List<String> splitArguments(String value) {
+        return value.isBlank() ? List.of() : Arrays.asList(value.trim().split("\\s+"));
+    }
+
+    /**
+     * Saves the default profiles to the file.
+     *
+     * @since 1.0
+     */
+    private void saveDefaultProfiles(Path path) {
+        try {
+            Files.write(path, """
+                    # Launch profiles of the cloud. Keys are prefixed with the server type or 'default'.
+                    # Available keys: java, jar, heap, minHeap, gc (G1, ZGC, SHENANDOAH, PARALLEL, SERIAL), flags, args, maxPlayers, cds, startTimeout, startRetries
+                    # cds is the path of a class data sharing archive or 'auto' to let the cloud create one per template (needs java 13+)
+                    # startTimeout is the deadline in seconds to register, till enough boot times are known to adapt it
+                    default.java=java
+                    default.jar=spigot.jar
+                    default.heap=1024
+                    default.gc=G1
+                    default.flags=-XX:+ParallelRefProcEnabled -XX:MaxGCPauseMillis=200 -XX:+UnlockExperimentalVMOptions -XX:+DisableExplicitGC -XX:+AlwaysPreTouch -XX:G1NewSizePercent=30 -XX:G1MaxNewSizePercent=40 -XX:G1HeapRegionSize=8M -XX:G1ReservePercent=20 -XX:InitiatingHeapOccupancyPercent=15
+                    default.args=nogui
+                    default.maxPlayers=20
+                    default.cds=auto
+                    default.startTimeout=180
+                    default.startRetries=1
+                    BUNGEECORD.jar=BungeeCord.jar
+                    BUNGEECORD.heap=512
+                    BUNGEECORD.flags=-XX:+ParallelRefProcEnabled -XX:MaxGCPauseMillis=100 -XX:+DisableExplicitGC
+                    BUNGEECORD.args=
+                    BUNGEECORD.maxPlayers=120
+                    BUNGEECORD.startTimeout=90
+                    LOBBY.heap=1536
+                    LANDSCAPES.heap=4096
+                    LANDSCAPES.maxPlayers=50
+                    FREEBUILD.heap=4096
+                    FREEBUILD.maxPlayers=50
+                    COCBASE.heap=4096
+                    COCBASE.maxPlayers=10
+                    """.getBytes());
+        } catch (IOException exception) {
+            LOG.error("Could not save default launch profiles: " + exception.getMessage());
+        }
+    }
+}
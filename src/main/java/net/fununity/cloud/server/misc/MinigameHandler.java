@@ -7,6 +7,7 @@ import net.fununity.cloud.common.utils.CloudLogger;
 import net.fununity.cloud.server.client.listeners.CloudEvents;
 import net.fununity.cloud.server.server.Server;
 import net.fununity.cloud.server.server.ServerHandler;
+import net.fununity.cloud.server.server.StartPriority;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -90,9 +91,8 @@ public class MinigameHandler {
         if (ServerHandler.getInstance().getCurrentRamUsed() > ServerHandler.MAX_RAM)
             return;
 
-        if (lobbies + startingServer < 3) {
+        if (lobbies + startingServer < 3 && ServerHandler.getInstance().createServerByServerType(serverType, StartPriority.MINIGAME_LOBBY)) {
             startingServer++;
-            ServerHandler.getInstance().createServerByServerType(serverType);
         }
     }
 
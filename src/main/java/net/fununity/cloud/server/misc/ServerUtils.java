@@ -43,36 +43,6 @@ public class ServerUtils {
         return path.toString();
     }
 
-    /**
-     * Get the ram for a specified type.
-     * @param serverType {@link ServerType} - The server type.
-     * @return int - the ram in megabyte.
-     * @since 0.0.1
-     */
-    public static int getRamFromType(ServerType serverType) {
-        return switch (serverType) {
-            case LOBBY -> 1536;
-            case LANDSCAPES, FREEBUILD, COCBASE -> 4096;
-            case BUNGEECORD -> 512;
-            default -> 1024;
-        };
-    }
-
-    /**
-     * Gets the max number of players of a server type.
-     * @param serverType {@link ServerType} - the server type.
-     * @return int - the maximum number of players on the server.
-     * @since 0.0.1
-     */
-    public static int getMaxPlayersOfServerType(ServerType serverType) {
-        return switch (serverType) {
-            case BUNGEECORD -> 120;
-            case LANDSCAPES, FREEBUILD -> 50;
-            case COCBASE -> 10;
-            default -> 20;
-        };
-    }
-
     /**
      * Gets the max number of players from a server type.
      * @param serverType {@link ServerType} - the server type.
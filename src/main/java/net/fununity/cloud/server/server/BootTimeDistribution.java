@@ -0,0 +1,68 @@
+package net.fununity.cloud.server.server;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent boot times of one server type to derive percentiles from.
+ *
+ * @author Niko
+ * @see StartWatchdog
+ * @since 1.0
+ */
+public class BootTimeDistribution {
+
+    private static final int SAMPLES = 64;
+
+    private final long[] bootTimes;
+    private int next;
+    private int size;
+
+    /**
+     * Creates an empty distribution.
+     *
+     * @since 1.0
+     */
+    public BootTimeDistribution() {
+        this.bootTimes = new long[SAMPLES];
+        this.next = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a boot time, replacing the oldest one if the distribution is full.
+     *
+     * @param bootTime long - the boot time in milliseconds.
+     * @since 1.0
+     */
+    public synchronized void record(long bootTime) {
+        bootTimes[next] = bootTime;
+        next = (next + 1) % SAMPLES;
+        size = Math.min(size + 1, SAMPLES);
+    }
+
+    /**
+     * Gets the boot time at the given percentile.
+     *
+     * @param percentile double - the percentile between 0 and 1.
+     * @return long - the boot time in milliseconds or -1, if no boot time is known.
+     * @since 1.0
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (size == 0)
+            return -1;
+        long[] sorted = Arrays.copyOf(bootTimes, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    /**
+     * Gets the number of known boot times.
+     *
+     * @return int - the number of samples.
+     * @since 1.0
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,264 @@
+package net.fununity.cloud.server.server;
+
+import net.fununity.cloud.common.server.ServerType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how the jvm of a {@link ServerType} will be launched.
+ * The cloud builds the command line out of the profile and starts the jvm directly.
+ *
+ * @author Niko
+ * @see net.fununity.cloud.server.misc.LaunchProfileHandler
+ * @since 1.0
+ */
+public final class LaunchProfile {
+
+    public static final String CDS_MANAGED = "auto";
+
+    private final ServerType serverType;
+    private final String javaPath;
+    private final String jarFile;
+    private final int minHeap;
+    private final int maxHeap;
+    private final GarbageCollector garbageCollector;
+    private final List<String> jvmFlags;
+    private final List<String> serverArguments;
+    private final int maxPlayers;
+    private final String cdsArchive;
+    private final int startTimeout;
+    private final int startRetries;
+
+    /**
+     * Creates a new launch profile.
+     *
+     * @param serverType       {@link ServerType} - the type of the profile.
+     * @param javaPath         String - the path of the java executable.
+     * @param jarFile          String - the jar to launch, relative to the server directory.
+     * @param minHeap          int - the initial heap in megabyte.
+     * @param maxHeap          int - the maximum heap in megabyte.
+     * @param garbageCollector {@link GarbageCollector} - the garbage collector to use.
+     * @param jvmFlags         List<String> - additional jvm flags.
+     * @param serverArguments  List<String> - arguments passed to the server jar.
+     * @param maxPlayers       int - the maximum number of players on the server.
+     * @param cdsArchive       String - the class data sharing archive, {@link #CDS_MANAGED} or null.
+     * @param startTimeout     int - the seconds a server may need to register, till enough boot times are known.
+     * @param startRetries     int - how often a timed out start will be replaced by a new server.
+     * @since 1.0
+     */
+    public LaunchProfile(ServerType serverType, String javaPath, String jarFile, int minHeap, int maxHeap, GarbageCollector garbageCollector,
+                         List<String> jvmFlags, List<String> serverArguments, int maxPlayers, String cdsArchive, int startTimeout, int startRetries) {
+        this.serverType = serverType;
+        this.javaPath = javaPath;
+        this.jarFile = jarFile;
+        this.minHeap = Math.min(minHeap, maxHeap);
+        this.maxHeap = maxHeap;
+        this.garbageCollector = garbageCollector;
+        this.jvmFlags = Collections.unmodifiableList(new ArrayList<>(jvmFlags));
+        this.serverArguments = Collections.unmodifiableList(new ArrayList<>(serverArguments));
+        this.maxPlayers = maxPlayers;
+        this.cdsArchive = cdsArchive;
+        this.startTimeout = startTimeout;
+        this.startRetries = startRetries;
+    }
+
+    /**
+     * Builds the command line to launch the jvm of a server.
+     *
+     * @param serverId        String - the id of the server.
+     * @param managedCdsFlags List<String> - the flags of the managed class data sharing archive, only used if {@link #isManagedCds()}.
+     * @return List<String> - the command.
+     * @since 1.0
+     */
+    public List<String> buildCommand(String serverId, List<String> managedCdsFlags) {
+        List<String> command = new ArrayList<>();
+        command.add(javaPath);
+        command.add("-Xms" + minHeap + "M");
+        command.add("-Xmx" + maxHeap + "M");
+        command.add(garbageCollector.getFlag());
+        command.addAll(jvmFlags);
+        if (isManagedCds())
+            command.addAll(managedCdsFlags);
+        else if (cdsArchive != null)
+            command.add("-XX:SharedArchiveFile=" + cdsArchive);
+        command.add("-Dcloud.server.id=" + serverId);
+        command.add("-jar");
+        command.add(jarFile);
+        command.addAll(serverArguments);
+        return command;
+    }
+
+    /**
+     * Gets the server type of the profile.
+     *
+     * @return {@link ServerType} - the server type.
+     * @since 1.0
+     */
+    public ServerType getServerType() {
+        return serverType;
+    }
+
+    /**
+     * Gets the path to the java executable.
+     *
+     * @return String - the java path.
+     * @since 1.0
+     */
+    public String getJavaPath() {
+        return javaPath;
+    }
+
+    /**
+     * Gets the jar which will be launched, relative to the server directory.
+     *
+     * @return String - the jar file.
+     * @since 1.0
+     */
+    public String getJarFile() {
+        return jarFile;
+    }
+
+    /**
+     * Gets the initial heap.
+     *
+     * @return int - the initial heap in megabyte.
+     * @since 1.0
+     */
+    public int getMinHeap() {
+        return minHeap;
+    }
+
+    /**
+     * Gets the maximum heap.
+     *
+     * @return int - the maximum heap in megabyte.
+     * @since 1.0
+     */
+    public int getMaxHeap() {
+        return maxHeap;
+    }
+
+    /**
+     * Gets the garbage collector.
+     *
+     * @return {@link GarbageCollector} - the garbage collector.
+     * @since 1.0
+     */
+    public GarbageCollector getGarbageCollector() {
+        return garbageCollector;
+    }
+
+    /**
+     * Gets the additional jvm flags.
+     *
+     * @return List<String> - the flags.
+     * @since 1.0
+     */
+    public List<String> getJvmFlags() {
+        return jvmFlags;
+    }
+
+    /**
+     * Gets the arguments passed to the server jar.
+     *
+     * @return List<String> - the arguments.
+     * @since 1.0
+     */
+    public List<String> getServerArguments() {
+        return serverArguments;
+    }
+
+    /**
+     * Gets the max number of players of a server with this profile.
+     *
+     * @return int - the maximum number of players.
+     * @since 1.0
+     */
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * Gets the class data sharing archive.
+     *
+     * @return String - the archive, {@link #CDS_MANAGED} or null.
+     * @since 1.0
+     */
+    public String getCdsArchive() {
+        return cdsArchive;
+    }
+
+    /**
+     * Gets the seconds a server may need to register, till enough boot times are known.
+     *
+     * @return int - the start timeout in seconds.
+     * @see StartWatchdog
+     * @since 1.0
+     */
+    public int getStartTimeout() {
+        return startTimeout;
+    }
+
+    /**
+     * Gets how often a timed out start will be replaced by a new server.
+     *
+     * @return int - the number of retries.
+     * @see StartWatchdog
+     * @since 1.0
+     */
+    public int getStartRetries() {
+        return startRetries;
+    }
+
+    /**
+     * Checks if the class data sharing archive is created and invalidated by the cloud.
+     *
+     * @return boolean - the archive is managed.
+     * @see net.fununity.cloud.server.misc.ClassDataSharingHandler
+     * @since 1.0
+     */
+    public boolean isManagedCds() {
+        return CDS_MANAGED.equalsIgnoreCase(cdsArchive);
+    }
+
+    @Override
+    public String toString() {
+        return "LaunchProfile{" +
+               "serverType=" + serverType +
+               ", javaPath='" + javaPath + '\'' +
+               ", jarFile='" + jarFile + '\'' +
+               ", heap=" + minHeap + "M-" + maxHeap + "M" +
+               ", garbageCollector=" + garbageCollector +
+               ", jvmFlags=" + jvmFlags +
+               ", maxPlayers=" + maxPlayers +
+               ", cdsArchive=" + cdsArchive +
+               ", startTimeout=" + startTimeout +
+               ", startRetries=" + startRetries +
+               '}';
+    }
+
+    /**
+     * The garbage collectors a profile can choose from.
+     *
+     * @since 1.0
+     */
+    public enum GarbageCollector {
+        G1("-XX:+UseG1GC"),
+        ZGC("-XX:+UseZGC"),
+        SHENANDOAH("-XX:+UseShenandoahGC"),
+        PARALLEL("-XX:+UseParallelGC"),
+        SERIAL("-XX:+UseSerialGC");
+
+        private final String flag;
+
+        GarbageCollector(String flag) {
+            this.flag = flag;
+        }
+
+        public String getFlag() {
+            return flag;
+        }
+    }
+}
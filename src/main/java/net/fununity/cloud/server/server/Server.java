@@ -3,18 +3,28 @@ package net.fununity.cloud.server.server;
 import net.fununity.cloud.common.server.ServerState;
 import net.fununity.cloud.common.server.ServerType;
 import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.backup.BackupScheduler;
+import net.fununity.cloud.server.backup.BackupStore;
+import net.fununity.cloud.server.backup.Snapshot;
 import net.fununity.cloud.server.command.DebugCommand;
+import net.fununity.cloud.server.files.ServerTrash;
+import net.fununity.cloud.server.files.TemplateProvisioner;
+import net.fununity.cloud.server.logs.LogArchiver;
+import net.fununity.cloud.server.misc.ClassDataSharingHandler;
+import net.fununity.cloud.server.misc.LaunchProfileHandler;
 import net.fununity.cloud.server.misc.ServerUtils;
-import org.apache.commons.io.FileUtils;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -29,6 +39,7 @@ public final class Server {
     private static final String FILE_STATUS = "serverStatus.sh";
     private static final String FILE_KILL = "killServer.sh";
     private static final String FILE_LOG = "logs/latest.log";
+    private static final String FILE_CONSOLE = "console.log";
 
     private static final String FILE_SERVER_PROPERTIES = "server.properties";
     private static final CloudLogger LOG = CloudLogger.getLogger(Server.class.getSimpleName());
@@ -51,6 +62,10 @@ public final class Server {
     private ServerShutdown shutdownProcess;
     private ServerAliveChecker aliveChecker;
     private ServerStopper serverStopper;
+    private Process process;
+    private List<String> launchCommand;
+    private long launchTime;
+    private long registerTime;
 
     /**
      * Creates a new server instance.
@@ -85,7 +100,7 @@ public final class Server {
     }
 
     /**
-     * Creates a server with the optimal port, ram and motd.
+     * Creates a server with the optimal port and motd and the ram and max players of the {@link LaunchProfile}.
      *
      * @param serverId   String - the identifier of the server.
      * @param serverIp   String - the ip of the server.
@@ -95,7 +110,8 @@ public final class Server {
      * @since 0.0.1
      */
     public Server(String serverId, String serverIp, ServerType serverType) {
-        this(serverId, serverIp, ServerHandler.getInstance().getOptimalPort(serverType), ServerUtils.getRamFromType(serverType) + "M", serverId, ServerUtils.getMaxPlayersOfServerType(serverType), serverType);
+        this(serverId, serverIp, ServerHandler.getInstance().getOptimalPort(serverType), LaunchProfileHandler.getInstance().getProfile(serverType).getMaxHeap() + "M",
+                serverId, LaunchProfileHandler.getInstance().getProfile(serverType).getMaxPlayers(), serverType);
     }
 
     /**
@@ -110,15 +126,30 @@ public final class Server {
     }
 
     /**
-     * Creates the server directory and copies the template if it doesn't exist.
+     * Creates the server directory out of the pending backup of its last stop, the latest backup snapshot,
+     * a legacy backup directory or the template.
+     * An already existing server directory or a reclaimed one of the {@link ServerTrash} is synced incrementally.
      *
+     * @see BackupStore
+     * @see TemplateProvisioner
      * @since 0.0.1
      */
     public void createFiles() throws IOException {
         File serverDirectory = new File(this.serverPath);
-        if (serverDirectory.exists()) {
-            LOG.warn("Server directory for %s already exist. Delete to create a new server...", serverId);
-            FileUtils.deleteDirectory(serverDirectory);
+        if (!serverDirectory.exists() && BackupScheduler.getInstance().reclaimStoppedBackup(serverId, serverDirectory.toPath())) {
+            LOG.debug("Reclaimed the pending backup of %s", serverId);
+            return;
+        }
+        if (serverDirectory.exists())
+            LOG.debug("Server directory for %s already exist. Syncing it...", serverId);
+        else if (ServerTrash.getInstance().reclaim(this.serverType, serverDirectory.toPath()))
+            LOG.debug("Reclaimed a trashed directory for %s. Syncing it...", serverId);
+
+        Snapshot snapshot = BackupStore.getInstance().getLatestSnapshot(serverId);
+        if (snapshot != null) {
+            LOG.debug("Restoring backup snapshot %s for %s", snapshot.getCreatedAt(), serverId);
+            BackupStore.getInstance().restore(snapshot, serverDirectory.toPath());
+            return;
         }
 
         String copyPath;
@@ -130,7 +161,9 @@ public final class Server {
             LOG.debug("Copying template for %s out of %s", serverId, copyPath);
         }
 
-        FileUtils.copyDirectory(new File(copyPath), serverDirectory);
+        long start = System.currentTimeMillis();
+        TemplateProvisioner.Mode mode = TemplateProvisioner.getInstance().provision(Path.of(copyPath), serverDirectory.toPath());
+        LOG.debug("Provisioned %s with %s in %s ms", serverId, mode, System.currentTimeMillis() - start);
     }
 
     public void setFileServerProperties() throws IOException {
@@ -158,6 +191,8 @@ public final class Server {
 
     /**
      * Tries to start the server instance.
+     * The jvm is launched directly with the {@link LaunchProfile} of the server type.
+     * Falls back to the start script of the template, if the jar of the profile does not exist.
      *
      * @since 0.0.1
      */
@@ -168,21 +203,86 @@ public final class Server {
             return;
         }
 
-        File file = new File(this.serverPath + FILE_START);
-        if (!file.exists()) {
-            throw new IllegalStateException(FILE_START + " for server " + serverId + " does not exist: " + file.getPath());
+        LaunchProfile profile = LaunchProfileHandler.getInstance().getProfile(serverType);
+        boolean startScript = !new File(this.serverPath + profile.getJarFile()).exists();
+        ProcessBuilder processBuilder;
+        if (!startScript) {
+            List<String> cdsFlags = profile.isManagedCds() ? ClassDataSharingHandler.getInstance().getLaunchFlags(serverType, profile) : List.of();
+            processBuilder = new ProcessBuilder(profile.buildCommand(serverId, cdsFlags))
+                    .directory(new File(this.serverPath))
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File(this.serverPath + FILE_CONSOLE));
+        } else {
+            File file = new File(this.serverPath + FILE_START);
+            if (!file.exists()) {
+                throw new IllegalStateException(profile.getJarFile() + " and " + FILE_START + " for server " + serverId + " do not exist in " + this.serverPath);
+            }
+            LOG.warn("%s for server %s does not exist, falling back to %s", profile.getJarFile(), serverId, FILE_START);
+            processBuilder = new ProcessBuilder("sh", file.getPath(), this.serverPath, this.serverId, this.serverMaxRam);
         }
 
         try {
-            new ProcessBuilder("sh", file.getPath(), this.serverPath, this.serverId, this.serverMaxRam).start();
+            this.launchCommand = processBuilder.command();
+            this.launchTime = System.currentTimeMillis();
+            Process started = processBuilder.start();
+            // the start script detaches the server, so the status and kill scripts have to be used
+            this.process = startScript ? null : started;
+            if (this.process != null)
+                this.process.onExit().thenRun(this::processExited);
+            if (this.process != null && profile.isManagedCds())
+                ClassDataSharingHandler.getInstance().launched(serverType, this.process);
+            LOG.info("Launched %s in %s ms: %s", serverId, System.currentTimeMillis() - launchTime, String.join(" ", launchCommand));
             if (serverType != ServerType.BUNGEECORD)
                 this.aliveChecker = new ServerAliveChecker(this);
         } catch (IOException e) {
-            throw new IllegalStateException("Could execute stop command for server " + serverId + ": " + e.getMessage());
+            if (!startScript && profile.isManagedCds())
+                ClassDataSharingHandler.getInstance().cancelTraining(serverType);
+            throw new IllegalStateException("Could not launch server " + serverId + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Called when the launched process exited.
+     * A process which exits before the client registered counts as failed start, which is aborted by the {@link StartWatchdog}.
+     *
+     * @since 1.0
+     */
+    private void processExited() {
+        if (isStopped() || this.registerTime != 0)
+            return;
+        ServerHandler.getInstance().getStartWatchdog().exited(this, process.exitValue());
+    }
+
+    /**
+     * Aborts the start of the server.
+     * Records the failed start, saves the logfile and flushes the server.
+     *
+     * @param reason        String - why the start failed.
+     * @param logfilePrefix String - the prefix of the saved logfile.
+     * @since 1.0
+     */
+    void abortStart(String reason, String logfilePrefix) {
+        setSaveLogFile(logfilePrefix);
+        ServerHandler.getInstance().startFailed(this, reason);
+        createStopperIfNotExist().flushServer();
+    }
+
+    /**
+     * Records the time the server needed from launching till the registration of the client.
+     *
+     * @since 1.0
+     */
+    public void clientRegistered() {
+        if (this.registerTime != 0 || this.launchTime == 0)
+            return;
+        this.registerTime = System.currentTimeMillis();
+        LOG.info("Server %s registered %s ms after launch", serverId, getStartupTime());
+    }
+
     public boolean isRunning() {
+        if (this.process != null)
+            return this.process.isAlive();
+
         File file = new File(this.serverPath + FILE_STATUS);
         if (!file.exists()) {
             LOG.error("%s for server %s does not exist!", serverId, FILE_STATUS);
@@ -209,6 +309,19 @@ public final class Server {
 
     boolean kill() {
         serverStopped();
+        if (this.process != null) {
+            LOG.debug("Killing process of server %s...", serverId);
+            this.process.destroy();
+            try {
+                if (!this.process.waitFor(5, TimeUnit.SECONDS))
+                    this.process.destroyForcibly();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                this.process.destroyForcibly();
+            }
+            return true;
+        }
+
         File file = new File(serverPath + FILE_KILL);
         if (!file.exists()) {
             LOG.error("%s for %s does not be exist!", FILE_KILL, serverId);
@@ -247,9 +360,15 @@ public final class Server {
         return serverStopper;
     }
 
+    /**
+     * Moves the log file of the stopped server into its debug output, where it is compressed in the background.
+     *
+     * @see LogArchiver
+     * @since 0.0.1
+     */
     void saveLogFile() {
-        File logFile = new File(this.serverPath + "/" + FILE_LOG);
-        if (!logFile.exists()) {
+        Path logFile = getLogFile();
+        if (!Files.exists(logFile)) {
             LOG.error("Could not save logfile %s for server %s: Does not exist", FILE_LOG, serverId);
             return;
         }
@@ -257,8 +376,7 @@ public final class Server {
         String filename = String.format("%s-%s.log", getLogFilePrefix(), OffsetDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy-HH:mm:ss")));
 
         try {
-            Path savePath = DebugCommand.DEBUG_OUTPUT.resolve(serverId + "/" + filename);
-            FileUtils.copyFile(logFile, savePath.toFile(), true);
+            Path savePath = LogArchiver.getInstance().archive(logFile, DebugCommand.DEBUG_OUTPUT.resolve(serverId), filename);
             LOG.info("Logfile saved for server %s in %s", serverId, savePath);
         } catch (IOException e) {
             LOG.error("Could not save log file for server %s: %s", serverId, e.getMessage());
@@ -266,23 +384,27 @@ public final class Server {
     }
 
     /**
-     * Moves the current server to the backup path.
+     * Queues a backup of the current server as a new snapshot of the {@link BackupStore} on the {@link BackupScheduler}.
+     * Without copy, the server directory is moved out of the way first, so the caller does not wait for the backup.
+     * A legacy backup directory of the server is trashed, as the snapshot replaces it.
      *
+     * @param copy boolean - keep the server directory, otherwise it is trashed after the backup.
      * @since 0.0.1
      */
     public void moveToBackup(boolean copy) throws IOException {
-        File backupFile = new File(this.backupPath);
-        if (!backupFile.exists()) {
-            backupFile.mkdirs();
+        ServerTrash.getInstance().trash(Path.of(this.backupPath), this.serverType);
+        if (copy) {
+            BackupScheduler.getInstance().queueBackup(this, true);
+            return;
+        }
+        try {
+            BackupScheduler.getInstance().queueStoppedBackup(serverId, serverType, Path.of(this.serverPath));
+            LOG.debug("Server %s queued for backup: %s", serverId, this.serverPath);
+        } catch (IOException exception) {
+            LOG.warn("Could not move %s for its backup, backing it up directly: %s", serverId, exception.getMessage());
+            BackupStore.getInstance().backup(serverId, Path.of(this.serverPath));
+            ServerTrash.getInstance().trash(Path.of(this.serverPath), this.serverType);
         }
-
-        FileUtils.deleteDirectory(backupFile);
-
-        if (copy)
-            FileUtils.copyDirectory(new File(this.serverPath), backupFile, false);
-        else
-            FileUtils.moveDirectory(new File(this.serverPath), backupFile);
-        LOG.debug("Server %s backed up: %s", serverId, this.serverPath);
     }
 
     void serverStopped() {
@@ -420,6 +542,46 @@ public final class Server {
         return playerCount.get();
     }
 
+    /**
+     * Gets the command the server was launched with.
+     *
+     * @return List<String> - the launch command or null, if not launched yet.
+     * @since 1.0
+     */
+    public List<String> getLaunchCommand() {
+        return launchCommand;
+    }
+
+    /**
+     * Gets the directory of the server.
+     *
+     * @return String - the relative path of the server directory.
+     * @since 1.0
+     */
+    public String getServerPath() {
+        return serverPath;
+    }
+
+    /**
+     * Gets the log file the running server writes to.
+     *
+     * @return Path - the latest log of the server.
+     * @since 1.0
+     */
+    public Path getLogFile() {
+        return Path.of(this.serverPath, FILE_LOG);
+    }
+
+    /**
+     * Gets the time the server needed from launching till the registration of the client.
+     *
+     * @return long - the startup time in milliseconds or -1, if not registered yet.
+     * @since 1.0
+     */
+    public long getStartupTime() {
+        return registerTime == 0 ? -1 : registerTime - launchTime;
+    }
+
     public void setSaveLogFile(String saveLogfilePrefix) {
         this.saveLogfilePrefix = saveLogfilePrefix;
     }
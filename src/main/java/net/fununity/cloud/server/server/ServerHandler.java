@@ -47,9 +47,11 @@ public class ServerHandler {
 
     private final ClientHandler clientHandler;
     private final List<Server> servers;
-    private final Queue<Server> startQueue;
+    private final StartQueue startQueue;
     private final Queue<Server> stopQueue;
     private final Set<ServerType> expireServers;
+    private final StartFailureTracker startFailureTracker;
+    private final StartWatchdog startWatchdog;
     private final AtomicInteger networkCount;
 
     /**
@@ -64,8 +66,10 @@ public class ServerHandler {
         // thread safe collections
         this.servers = new CopyOnWriteArrayList<>();
         this.stopQueue = new ConcurrentLinkedQueue<>();
-        this.startQueue = new ConcurrentLinkedQueue<>();
+        this.startQueue = new StartQueue();
         this.expireServers = new CopyOnWriteArraySet<>();
+        this.startFailureTracker = new StartFailureTracker();
+        this.startWatchdog = new StartWatchdog();
         this.networkCount = new AtomicInteger(0);
     }
 
@@ -84,14 +88,15 @@ public class ServerHandler {
     /**
      * Adds a server to the server array.
      *
-     * @param server Server - the server.
+     * @param server   Server - the server.
+     * @param priority {@link StartPriority} - the priority in the start queue.
      * @see Server
      * @since 0.0.1
      */
-    public void addServer(Server server) {
+    public void addServer(Server server, StartPriority priority) {
         if (!this.servers.contains(server)) {
             this.servers.add(server);
-            this.addToStartQueue(server);
+            this.addToStartQueue(server, priority);
         }
     }
 
@@ -230,7 +235,7 @@ public class ServerHandler {
      */
     public void restartServer(Server server) {
         LOG.info("Try to restart server: %s", server.getServerId());
-        shutdownServer(server, () -> createServerByServerType(server.getServerType()));
+        shutdownServer(server, () -> createServerByServerType(server.getServerType(), StartPriority.DEFAULT));
     }
 
     /**
@@ -259,16 +264,39 @@ public class ServerHandler {
         return null;
     }
 
+    /**
+     * Create a server with the given server type and the default start priority.
+     *
+     * @param serverType ServerType - the type of the server.
+     * @return boolean - the server was created.
+     * @see #createServerByServerType(ServerType, StartPriority)
+     * @since 0.0.1
+     */
+    public boolean createServerByServerType(ServerType serverType) {
+        return createServerByServerType(serverType, StartPriority.DEFAULT);
+    }
+
     /**
      * Create a server with the given server type.
+     * If the server type is backing off after failed starts, the creation will be retried once the backoff ended.
      *
      * @param serverType ServerType - the type of the server.
+     * @param priority   {@link StartPriority} - the priority in the start queue.
+     * @return boolean - the server was created.
+     * @see StartFailureTracker
      * @since 0.0.1
      */
-    public void createServerByServerType(ServerType serverType) {
+    public boolean createServerByServerType(ServerType serverType, StartPriority priority) {
         if (expireServers.contains(serverType)) {
             LOG.warn(serverType + " was tried to start, but is in expire mode!");
-            return;
+            return false;
+        }
+
+        long backoff = startFailureTracker.getRemainingBackoff(serverType);
+        if (backoff > 0) {
+            LOG.warn("%s was tried to start, but is backing off for %s s after failed starts", serverType, backoff / 1000);
+            startFailureTracker.retryAfterBackoff(serverType, priority);
+            return false;
         }
 
         List<Server> serversWithSameType = getAllServers().stream()
@@ -289,7 +317,8 @@ public class ServerHandler {
             serverId += nextNumber;
 
         LOG.debug("Create new server '%s' by type '%s'", serverId, serverType.name());
-        addServer(new Server(serverId, "127.0.0.1", serverType));
+        addServer(new Server(serverId, "127.0.0.1", serverType), priority);
+        return true;
     }
 
     /**
@@ -300,10 +329,9 @@ public class ServerHandler {
      * @since 0.0.1
      */
     public void shutdownAllServersOfType(ServerType type, String logfilePrefix) {
-        boolean firstServerOfTypeInQueue = !startQueue.isEmpty() && startQueue.peek().getServerType() == type;
-        startQueue.removeIf(s -> s.getServerType() == type);
-        if (firstServerOfTypeInQueue && !startQueue.isEmpty())
-            startServer(startQueue.peek());
+        Server next = startQueue.removeIf(s -> s.getServerType() == type);
+        if (next != null)
+            startServer(next);
 
         for (Server server : getActiveServersByType(type)) {
             server.setSaveLogFile(logfilePrefix);
@@ -419,14 +447,17 @@ public class ServerHandler {
 
     /**
      * Adds a server to the start queue.
+     * The server will be started directly, if no other server is starting.
      *
-     * @param server Server - the server to add.
+     * @param server   Server - the server to add.
+     * @param priority {@link StartPriority} - the priority in the start queue.
+     * @see StartQueue
      * @since 0.0.1
      */
-    public void addToStartQueue(Server server) {
-        this.startQueue.add(server);
-        if (startQueue.size() == 1) {
-            startServer(server);
+    public void addToStartQueue(Server server, StartPriority priority) {
+        Server next = this.startQueue.add(server, priority);
+        if (next != null) {
+            startServer(next);
         }
     }
 
@@ -438,12 +469,14 @@ public class ServerHandler {
      * @since 0.0.1
      */
     public void checkStartQueue(Server server) {
+        if (server == null)
+            return;
+        this.startWatchdog.cancel(server);
         if (this.startQueue.contains(server)) {
-            boolean top = this.startQueue.peek().getServerId().equals(server.getServerId());
-            this.startQueue.remove(server);
+            Server next = this.startQueue.remove(server);
             LOG.debug("Server %s was removed from start queue", server.getServerId());
-            if (!this.startQueue.isEmpty() && top) {
-                startServer(this.startQueue.peek());
+            if (next != null) {
+                startServer(next);
             }
         }
     }
@@ -456,7 +489,7 @@ public class ServerHandler {
         } catch (IOException exception) {
             LOG.error("Server directory for %s could not be created: %s", server.getServerId(), exception.getMessage());
             removeServer(server);
-            checkStartQueue(server);
+            startFailed(server, "files could not be created: " + exception.getMessage());
             return;
         }
 
@@ -466,20 +499,49 @@ public class ServerHandler {
         } catch (IOException e) {
             LOG.error("Could not set properties for server %s: %s", server.getServerId(), e.getMessage());
             server.deleteServer();
-            checkStartQueue(server);
+            startFailed(server, "properties could not be set: " + e.getMessage());
             return;
         }
 
         try {
             server.start();
             LOG.info("Server %s started.", server.getServerId());
+            if (this.startQueue.contains(server))
+                this.startWatchdog.watch(server);
         } catch (IllegalStateException exception) {
             LOG.error("Could not start server %s: %s", server.getServerId(), exception.getMessage());
             server.deleteServer();
-            checkStartQueue(server);
+            startFailed(server, exception.getMessage());
         }
     }
 
+    /**
+     * Records a failed start of the server and starts the next server in the queue.
+     * Enables expire mode for the server type, if it failed too often in a row.
+     *
+     * @param server Server - the server which failed to start.
+     * @param reason String - why the start failed.
+     * @see StartFailureTracker
+     * @since 1.0
+     */
+    public void startFailed(Server server, String reason) {
+        if (startFailureTracker.recordFailure(server.getServerType(), server.getServerId(), reason))
+            expire(server.getServerType());
+        checkStartQueue(server);
+    }
+
+    /**
+     * Records that the server registered and resets the failed starts of its type.
+     *
+     * @param server Server - the server which registered.
+     * @since 1.0
+     */
+    public void startSucceeded(Server server) {
+        startFailureTracker.recordSuccess(server.getServerType());
+        startWatchdog.registered(server);
+        checkStartQueue(server);
+    }
+
     /**
      * Gets a list of all registered bungeecord servers.
      *
@@ -555,7 +617,7 @@ public class ServerHandler {
     public void setPlayerCountOfNetwork(int count) {
         this.networkCount.set(count);
         if (this.networkCount.get() + 5 > getLobbyServers().stream().mapToInt(Server::getMaxPlayers).sum()) {
-            createServerByServerType(ServerType.LOBBY);
+            createServerByServerType(ServerType.LOBBY, StartPriority.DEMAND);
         }
     }
 
@@ -617,6 +679,37 @@ public class ServerHandler {
      */
     public void validate(ServerType serverType) {
         this.expireServers.remove(serverType);
+        this.startFailureTracker.reset(serverType);
+    }
+
+    /**
+     * Gets the server types which are in expire mode.
+     *
+     * @return Set<ServerType> - the expired server types.
+     * @since 1.0
+     */
+    public Set<ServerType> getExpiredServerTypes() {
+        return new HashSet<>(this.expireServers);
+    }
+
+    /**
+     * Gets the watchdog of the server starts.
+     *
+     * @return {@link StartWatchdog} - the watchdog.
+     * @since 1.0
+     */
+    public StartWatchdog getStartWatchdog() {
+        return this.startWatchdog;
+    }
+
+    /**
+     * Gets the tracker of failed server starts.
+     *
+     * @return {@link StartFailureTracker} - the tracker.
+     * @since 1.0
+     */
+    public StartFailureTracker getStartFailureTracker() {
+        return this.startFailureTracker;
     }
 
 
@@ -638,12 +731,28 @@ public class ServerHandler {
      */
     private List<Server> getAllServers() {
         List<Server> servers = getServers();
-        servers.addAll(this.startQueue);
+        servers.addAll(this.startQueue.getServers());
         servers.addAll(this.stopQueue);
         return servers;
     }
 
+    /**
+     * Gets the servers in the start queue, beginning with the starting server.
+     *
+     * @return Queue<Server> - the servers in start order.
+     * @since 1.0
+     */
     public Queue<Server> getStartQueue() {
-        return new LinkedList<>(startQueue);
+        return new LinkedList<>(startQueue.getServers());
+    }
+
+    /**
+     * Gets the start queue with its priorities and wait times.
+     *
+     * @return {@link StartQueue} - the start queue.
+     * @since 1.0
+     */
+    public StartQueue getPriorityStartQueue() {
+        return startQueue;
     }
 }
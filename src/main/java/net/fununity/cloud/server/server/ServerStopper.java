@@ -5,10 +5,11 @@ import net.fununity.cloud.common.server.ServerType;
 import net.fununity.cloud.common.utils.CloudLogger;
 import net.fununity.cloud.server.client.ClientHandler;
 import net.fununity.cloud.server.misc.ServerUtils;
-import org.apache.commons.io.FileUtils;
+import net.fununity.cloud.server.files.ServerTrash;
+import net.fununity.cloud.server.logs.LogTail;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class ServerStopper {
@@ -101,6 +102,7 @@ public class ServerStopper {
     }
 
     private void deleteServer() {
+        LogTail.getInstance().close(server.getLogFile());
         if (server.getLogFilePrefix() != null)
             server.saveLogFile();
 
@@ -110,7 +112,7 @@ public class ServerStopper {
             if (ServerUtils.needsServerBackup(serverType)) {
                 server.moveToBackup(false);
             } else {
-                FileUtils.deleteQuietly(new File(server.serverPath));
+                ServerTrash.getInstance().trash(Path.of(server.serverPath), serverType);
                 LOG.debug("Server deleted: %s", server.serverPath);
             }
         } catch (IOException exception) {
@@ -0,0 +1,201 @@
+package net.fununity.cloud.server.server;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * This class tracks failed server starts per {@link ServerType}.
+ * After a failed start, no server of the type will be created till an exponential backoff has passed.
+ * A creation requested while backing off will be retried once the backoff ended.</p>
+ * If a type fails too often in a row, the circuit breaker puts it into expire mode.
+ *
+ * @author Niko
+ * @see ServerHandler#expire(ServerType)
+ * @since 1.0
+ */
+public class StartFailureTracker {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(StartFailureTracker.class.getSimpleName());
+    private static final long BASE_BACKOFF = 5000;
+    private static final long MAX_BACKOFF = 5 * 60 * 1000L;
+    private static final int CIRCUIT_BREAKER_FAILURES = 5;
+
+    private final Map<ServerType, FailureState> failures;
+    private final Map<ServerType, StartPriority> pendingRetries;
+    private final Timer timer;
+
+    /**
+     * Creates a new tracker without any failures.
+     *
+     * @since 1.0
+     */
+    StartFailureTracker() {
+        this.failures = new EnumMap<>(ServerType.class);
+        this.pendingRetries = new ConcurrentHashMap<>();
+        this.timer = new Timer("StartFailureTracker", true);
+    }
+
+    /**
+     * Records a failed start of a server.
+     * Trips the circuit breaker, if the server type failed too often in a row.
+     *
+     * @param serverType {@link ServerType} - the type of the server.
+     * @param serverId   String - the id of the server.
+     * @param reason     String - why the start failed.
+     * @return boolean - the circuit breaker was tripped.
+     * @since 1.0
+     */
+    public boolean recordFailure(ServerType serverType, String serverId, String reason) {
+        int consecutiveFailures;
+        String lastReason;
+        synchronized (failures) {
+            FailureState state = failures.computeIfAbsent(serverType, type -> new FailureState());
+            consecutiveFailures = ++state.consecutiveFailures;
+            lastReason = state.lastReason = serverId + ": " + reason;
+            state.backoffUntil = System.currentTimeMillis() + getBackoff(consecutiveFailures);
+        }
+
+        if (consecutiveFailures >= CIRCUIT_BREAKER_FAILURES) {
+            LOG.error("%s failed to start %s times in a row (last: %s). Enabling expire mode, type 'validate %s' to start it again.",
+                    serverType, consecutiveFailures, lastReason, serverType);
+            return true;
+        }
+        LOG.warn("%s failed to start (%s in a row): %s. Backing off for %s s", serverType, consecutiveFailures, reason,
+                getBackoff(consecutiveFailures) / 1000);
+        return false;
+    }
+
+    /**
+     * Resets the failures of a server type, after a server of the type started successfully.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @since 1.0
+     */
+    public void recordSuccess(ServerType serverType) {
+        synchronized (failures) {
+            if (failures.remove(serverType) != null)
+                LOG.info("%s started successfully again, failures were reset", serverType);
+        }
+    }
+
+    /**
+     * Resets the failures of a server type, e.g. when an operator validates it again.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @since 1.0
+     */
+    public void reset(ServerType serverType) {
+        synchronized (failures) {
+            failures.remove(serverType);
+        }
+    }
+
+    /**
+     * Gets the number of failed starts in a row of the server type.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @return int - the consecutive failures.
+     * @since 1.0
+     */
+    public int getConsecutiveFailures(ServerType serverType) {
+        synchronized (failures) {
+            FailureState state = failures.get(serverType);
+            return state == null ? 0 : state.consecutiveFailures;
+        }
+    }
+
+    /**
+     * Gets the remaining backoff of the server type.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @return long - the remaining backoff in milliseconds or 0.
+     * @since 1.0
+     */
+    public long getRemainingBackoff(ServerType serverType) {
+        synchronized (failures) {
+            FailureState state = failures.get(serverType);
+            return state == null ? 0 : Math.max(0, state.backoffUntil - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Schedules one creation of the server type after its backoff ended.
+     * Multiple requests while backing off will only create one server, queued with the highest requested priority.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @param priority   {@link StartPriority} - the requested priority.
+     * @since 1.0
+     */
+    void retryAfterBackoff(ServerType serverType, StartPriority priority) {
+        StartPriority pending = pendingRetries.putIfAbsent(serverType, priority);
+        if (pending != null) {
+            if (priority.compareTo(pending) < 0)
+                pendingRetries.replace(serverType, pending, priority);
+            return;
+        }
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                StartPriority retryPriority = pendingRetries.remove(serverType);
+                if (retryPriority != null)
+                    ServerHandler.getInstance().createServerByServerType(serverType, retryPriority);
+            }
+        }, getRemainingBackoff(serverType) + 1);
+    }
+
+    /**
+     * Gets a copy of the current failure states.
+     *
+     * @return Map<ServerType, FailureState> - the failure states.
+     * @since 1.0
+     */
+    public Map<ServerType, FailureState> getFailures() {
+        synchronized (failures) {
+            Map<ServerType, FailureState> copy = new EnumMap<>(ServerType.class);
+            failures.forEach((type, state) -> copy.put(type, state.copy()));
+            return copy;
+        }
+    }
+
+    private long getBackoff(int consecutiveFailures) {
+        return Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(consecutiveFailures - 1, 16));
+    }
+
+    /**
+     * The failures of one server type.
+     *
+     * @since 1.0
+     */
+    public static final class FailureState {
+        private int consecutiveFailures;
+        private long backoffUntil;
+        private String lastReason;
+
+        private FailureState copy() {
+            FailureState copy = new FailureState();
+            copy.consecutiveFailures = consecutiveFailures;
+            copy.backoffUntil = backoffUntil;
+            copy.lastReason = lastReason;
+            return copy;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public long getRemainingBackoff() {
+            return Math.max(0, backoffUntil - System.currentTimeMillis());
+        }
+
+        public String getLastReason() {
+            return lastReason;
+        }
+    }
+}
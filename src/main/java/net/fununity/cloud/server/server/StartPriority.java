@@ -0,0 +1,30 @@
+package net.fununity.cloud.server.server;
+
+/**
+ * The priority classes of the {@link StartQueue}, from the most to the least important.
+ *
+ * @author Niko
+ * @since 1.0
+ */
+public enum StartPriority {
+    /**
+     * BungeeCord servers, which are always started first.
+     */
+    PROXY,
+    /**
+     * Lobbies created because players are waiting.
+     */
+    DEMAND,
+    /**
+     * Minigame lobbies created by the {@link net.fununity.cloud.server.misc.MinigameHandler}.
+     */
+    MINIGAME_LOBBY,
+    /**
+     * Servers started by default config, restarts or single console starts.
+     */
+    DEFAULT,
+    /**
+     * Bulk starts of the console.
+     */
+    BULK
+}
@@ -0,0 +1,221 @@
+package net.fununity.cloud.server.server;
+
+import net.fununity.cloud.common.server.ServerType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * The queue of servers waiting to be started. Only one server is started at a time.
+ * The next server is chosen by its {@link StartPriority}, BungeeCord servers are always chosen first.</p>
+ * Waiting servers age: every 30 seconds they are treated one priority class higher, so bulk starts cannot starve.
+ *
+ * @author Niko
+ * @see ServerHandler#addToStartQueue(Server, StartPriority)
+ * @since 1.0
+ */
+public class StartQueue {
+
+    private static final long AGING_INTERVAL = 30000;
+
+    private final List<Entry> waiting;
+    private final Map<StartPriority, WaitTime> waitTimes;
+    private Entry starting;
+
+    /**
+     * Creates an empty start queue.
+     *
+     * @since 1.0
+     */
+    StartQueue() {
+        this.waiting = new ArrayList<>();
+        this.waitTimes = new EnumMap<>(StartPriority.class);
+        for (StartPriority priority : StartPriority.values())
+            this.waitTimes.put(priority, new WaitTime());
+        this.starting = null;
+    }
+
+    /**
+     * Adds a server to the queue.
+     *
+     * @param server   Server - the server to add.
+     * @param priority {@link StartPriority} - the priority of the server.
+     * @return Server - the server which has to be started now or null.
+     * @since 1.0
+     */
+    synchronized Server add(Server server, StartPriority priority) {
+        if (contains(server))
+            return null;
+        waiting.add(new Entry(server, server.getServerType() == ServerType.BUNGEECORD ? StartPriority.PROXY : priority));
+        return starting == null ? promoteNext() : null;
+    }
+
+    /**
+     * Removes a server from the queue.
+     *
+     * @param server Server - the server to remove.
+     * @return Server - the server which has to be started now or null.
+     * @since 1.0
+     */
+    synchronized Server remove(Server server) {
+        if (starting != null && starting.server.equals(server)) {
+            starting = null;
+            return promoteNext();
+        }
+        waiting.removeIf(entry -> entry.server.equals(server));
+        return null;
+    }
+
+    /**
+     * Removes every server matching the filter from the queue.
+     *
+     * @param filter Predicate<Server> - the filter.
+     * @return Server - the server which has to be started now or null.
+     * @since 1.0
+     */
+    synchronized Server removeIf(Predicate<Server> filter) {
+        waiting.removeIf(entry -> filter.test(entry.server));
+        if (starting != null && filter.test(starting.server)) {
+            starting = null;
+            return promoteNext();
+        }
+        return null;
+    }
+
+    /**
+     * Removes every server from the queue.
+     *
+     * @since 1.0
+     */
+    synchronized void clear() {
+        waiting.clear();
+        starting = null;
+    }
+
+    /**
+     * Checks if the server is starting or waiting.
+     *
+     * @param server Server - the server.
+     * @return boolean - the server is in the queue.
+     * @since 1.0
+     */
+    public synchronized boolean contains(Server server) {
+        return (starting != null && starting.server.equals(server)) || waiting.stream().anyMatch(entry -> entry.server.equals(server));
+    }
+
+    /**
+     * Gets the starting server followed by the waiting servers in the order they would be started.
+     *
+     * @return List<Server> - the servers.
+     * @since 1.0
+     */
+    public synchronized List<Server> getServers() {
+        List<Server> servers = new ArrayList<>();
+        if (starting != null)
+            servers.add(starting.server);
+        long now = System.currentTimeMillis();
+        waiting.stream().sorted(getComparator(now)).forEach(entry -> servers.add(entry.server));
+        return servers;
+    }
+
+    /**
+     * Gets the priority the server was queued with.
+     *
+     * @param server Server - the server.
+     * @return {@link StartPriority} - the priority or null, if the server is not queued.
+     * @since 1.0
+     */
+    public synchronized StartPriority getPriority(Server server) {
+        if (starting != null && starting.server.equals(server))
+            return starting.priority;
+        return waiting.stream().filter(entry -> entry.server.equals(server)).map(entry -> entry.priority).findFirst().orElse(null);
+    }
+
+    /**
+     * Gets the time servers waited till they were started, per priority class.
+     *
+     * @return Map<StartPriority, WaitTime> - the wait times.
+     * @since 1.0
+     */
+    public synchronized Map<StartPriority, WaitTime> getWaitTimes() {
+        Map<StartPriority, WaitTime> copy = new EnumMap<>(StartPriority.class);
+        waitTimes.forEach((priority, waitTime) -> copy.put(priority, waitTime.copy()));
+        return copy;
+    }
+
+    private Server promoteNext() {
+        if (waiting.isEmpty())
+            return null;
+        long now = System.currentTimeMillis();
+        Entry next = waiting.stream().min(getComparator(now)).orElseThrow();
+        waiting.remove(next);
+        waitTimes.get(next.priority).record(now - next.queuedAt);
+        starting = next;
+        return next.server;
+    }
+
+    private Comparator<Entry> getComparator(long now) {
+        return Comparator.<Entry>comparingInt(entry -> entry.getEffectivePriority(now)).thenComparingLong(entry -> entry.queuedAt);
+    }
+
+    private static final class Entry {
+        private final Server server;
+        private final StartPriority priority;
+        private final long queuedAt;
+
+        private Entry(Server server, StartPriority priority) {
+            this.server = server;
+            this.priority = priority;
+            this.queuedAt = System.currentTimeMillis();
+        }
+
+        private int getEffectivePriority(long now) {
+            if (priority == StartPriority.PROXY)
+                return 0;
+            int aged = (int) ((now - queuedAt) / AGING_INTERVAL);
+            return Math.max(StartPriority.PROXY.ordinal() + 1, priority.ordinal() - aged);
+        }
+    }
+
+    /**
+     * The wait times of one priority class.
+     *
+     * @since 1.0
+     */
+    public static final class WaitTime {
+        private long count;
+        private long total;
+        private long max;
+
+        private void record(long waited) {
+            count++;
+            total += waited;
+            max = Math.max(max, waited);
+        }
+
+        private WaitTime copy() {
+            WaitTime copy = new WaitTime();
+            copy.count = count;
+            copy.total = total;
+            copy.max = max;
+            return copy;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getAverage() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+}
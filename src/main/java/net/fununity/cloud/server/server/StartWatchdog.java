@@ -0,0 +1,160 @@
+package net.fununity.cloud.server.server;
+
+import net.fununity.cloud.common.server.ServerType;
+import net.fununity.cloud.common.utils.CloudLogger;
+import net.fununity.cloud.server.misc.LaunchProfileHandler;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * This class gives every started server a deadline to register.
+ * If a server misses its deadline, it will be killed, the failed start is recorded and the start queue moves on.
+ * Depending on the {@link LaunchProfile}, a new server of the type will be created as replacement.</p>
+ * The deadline starts with the start timeout of the profile and adapts to the boot times of the type, once enough are known.
+ *
+ * @author Niko
+ * @see StartFailureTracker
+ * @since 1.0
+ */
+public class StartWatchdog {
+
+    private static final CloudLogger LOG = CloudLogger.getLogger(StartWatchdog.class.getSimpleName());
+    private static final int MIN_SAMPLES = 5;
+    private static final long MIN_DEADLINE = 30000;
+    private static final long MAX_DEADLINE = 10 * 60 * 1000L;
+    private static final double DEADLINE_PERCENTILE = 0.95;
+    private static final int DEADLINE_FACTOR = 2;
+
+    private final Map<ServerType, BootTimeDistribution> bootTimes;
+    private final Map<Server, TimerTask> deadlines;
+    private final Timer timer;
+
+    /**
+     * Creates the watchdog with an own timer thread.
+     *
+     * @since 1.0
+     */
+    StartWatchdog() {
+        this.bootTimes = new EnumMap<>(ServerType.class);
+        for (ServerType serverType : ServerType.values())
+            this.bootTimes.put(serverType, new BootTimeDistribution());
+        this.deadlines = new ConcurrentHashMap<>();
+        this.timer = new Timer("StartWatchdog", true);
+    }
+
+    /**
+     * Starts the deadline of a launched server.
+     *
+     * @param server Server - the launched server.
+     * @since 1.0
+     */
+    void watch(Server server) {
+        long deadline = getDeadline(server.getServerType());
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                if (deadlines.remove(server, this))
+                    timedOut(server, deadline);
+            }
+        };
+        TimerTask previous = deadlines.put(server, task);
+        if (previous != null)
+            previous.cancel();
+        timer.schedule(task, deadline);
+        LOG.debug("Server %s has to register within %s s", server.getServerId(), deadline / 1000);
+    }
+
+    /**
+     * Stops the deadline of a server and adds its boot time to the distribution of its type.
+     *
+     * @param server Server - the registered server.
+     * @since 1.0
+     */
+    void registered(Server server) {
+        cancel(server);
+        if (server.getStartupTime() >= 0)
+            bootTimes.get(server.getServerType()).record(server.getStartupTime());
+    }
+
+    /**
+     * Stops the deadline of a server, e.g. if it was removed from the start queue.
+     *
+     * @param server Server - the server.
+     * @since 1.0
+     */
+    void cancel(Server server) {
+        TimerTask task = deadlines.remove(server);
+        if (task != null)
+            task.cancel();
+    }
+
+    /**
+     * Aborts the start of a server, whose process exited before it registered.
+     * The abort runs on the timer thread of the watchdog like a missed deadline,
+     * so the next server of the start queue is not launched on the thread, which observed the exit.
+     *
+     * @param server   Server - the server.
+     * @param exitCode int - the exit code of the process.
+     * @since 1.0
+     */
+    void exited(Server server, int exitCode) {
+        cancel(server);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                if (server.isStopped() || server.getStartupTime() >= 0)
+                    return;
+                LOG.warn("Process of server %s exited with code %s before it registered", server.getServerId(), exitCode);
+                server.abortStart("process exited with code " + exitCode, "startfailed");
+            }
+        }, 0);
+    }
+
+    /**
+     * Gets the current deadline of a server type to register.
+     * It is a multiple of the 95th percentile of the recent boot times, bounded to sane values.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @return long - the deadline in milliseconds.
+     * @since 1.0
+     */
+    public long getDeadline(ServerType serverType) {
+        BootTimeDistribution distribution = bootTimes.get(serverType);
+        if (distribution.size() < MIN_SAMPLES)
+            return LaunchProfileHandler.getInstance().getProfile(serverType).getStartTimeout() * 1000L;
+        long deadline = distribution.getPercentile(DEADLINE_PERCENTILE) * DEADLINE_FACTOR;
+        return Math.max(MIN_DEADLINE, Math.min(MAX_DEADLINE, deadline));
+    }
+
+    /**
+     * Gets the boot time distribution of a server type.
+     *
+     * @param serverType {@link ServerType} - the server type.
+     * @return {@link BootTimeDistribution} - the distribution.
+     * @since 1.0
+     */
+    public BootTimeDistribution getBootTimes(ServerType serverType) {
+        return bootTimes.get(serverType);
+    }
+
+    private void timedOut(Server server, long deadline) {
+        ServerHandler serverHandler = ServerHandler.getInstance();
+        if (server.getStartupTime() >= 0 || !serverHandler.getStartQueue().contains(server))
+            return;
+
+        ServerType serverType = server.getServerType();
+        LOG.warn("Server %s did not register within %s s. Killing it...", server.getServerId(), deadline / 1000);
+        server.abortStart("did not register within " + deadline / 1000 + " s", "starttimeout");
+
+        int failures = serverHandler.getStartFailureTracker().getConsecutiveFailures(serverType);
+        if (failures > 0 && failures <= LaunchProfileHandler.getInstance().getProfile(serverType).getStartRetries()) {
+            LOG.info("Retrying start of %s (%s in a row)", serverType, failures);
+            serverHandler.createServerByServerType(serverType, StartPriority.DEFAULT);
+        }
+    }
+}
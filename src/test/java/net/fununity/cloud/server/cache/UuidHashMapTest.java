@@ -0,0 +1,122 @@
+package net.fununity.cloud.server.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidHashMapTest {
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(44);
+        UUID[] keys = randomKeys(random, 300);
+        UuidHashMap<String> map = new UuidHashMap<>(0);
+        Map<UUID, String> expected = new HashMap<>();
+
+        for (int step = 0; step < 200000; step++) {
+            UUID key = keys[random.nextInt(keys.length)];
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    String value = "v" + step;
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                case 2 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        Map<UUID, String> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+
+    @Test
+    void keepsCollidingKeysAfterBackwardShiftRemoval() {
+        // msb ^ rotateLeft(lsb, 32) is zero for all of these keys, so they share one home slot and removals shift the probe chain back
+        UuidHashMap<Integer> map = new UuidHashMap<>(0);
+        List<UUID> keys = new ArrayList<>();
+        for (long i = 1; i <= 12; i++)
+            keys.add(new UUID(i, Long.rotateLeft(i, 32)));
+        for (int i = 0; i < keys.size(); i++)
+            map.put(keys.get(i), i);
+        assertEquals(keys.size(), map.size());
+        for (int i = 0; i < keys.size(); i += 3)
+            map.remove(keys.get(i));
+        for (int i = 0; i < keys.size(); i++)
+            assertEquals(i % 3 == 0 ? null : i, map.get(keys.get(i)));
+    }
+
+    @Test
+    void computeRemovesKeyOnNull() {
+        UuidHashMap<String> map = new UuidHashMap<>(0);
+        UUID key = UUID.randomUUID();
+        assertEquals("a", map.compute(key, value -> value == null ? "a" : value + "b"));
+        assertEquals("ab", map.compute(key, value -> value == null ? "a" : value + "b"));
+        assertNull(map.compute(key, value -> null));
+        assertNull(map.get(key));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void boundedMapEvictsDownToItsBound() {
+        Random random = new Random(7);
+        UuidHashMap<UUID> map = new UuidHashMap<>(100);
+        for (UUID key : randomKeys(random, 1000))
+            map.put(key, key);
+        assertTrue(map.size() <= 100, "size " + map.size());
+        assertTrue(map.getEvictions() >= 900, "evictions " + map.getEvictions());
+        map.forEach((key, value) -> assertEquals(key, value));
+    }
+
+    @Test
+    void optimisticReadsNeverSeeForeignValues() throws InterruptedException {
+        Random random = new Random(3);
+        UUID[] keys = randomKeys(random, 2000);
+        UuidHashMap<UUID> map = new UuidHashMap<>(0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int thread = 0; thread < 3; thread++) {
+            Random readerRandom = new Random(thread);
+            readers.add(new Thread(() -> {
+                while (running.get()) {
+                    UUID key = keys[readerRandom.nextInt(keys.length)];
+                    UUID value = map.get(key);
+                    if (value != null && !value.equals(key))
+                        failure.set("read " + value + " for " + key);
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        // the writer grows the table and shrinks it by removals, so the readers race with resizes and backward shifts
+        for (int round = 0; round < 50; round++) {
+            for (UUID key : keys)
+                map.put(key, key);
+            for (int i = 0; i < keys.length; i += 2)
+                map.remove(keys[i]);
+        }
+        running.set(false);
+        for (Thread reader : readers)
+            reader.join();
+        assertNull(failure.get());
+    }
+
+    static UUID[] randomKeys(Random random, int amount) {
+        UUID[] keys = new UUID[amount];
+        for (int i = 0; i < amount; i++)
+            keys[i] = new UUID(random.nextLong(), random.nextLong());
+        return keys;
+    }
+}